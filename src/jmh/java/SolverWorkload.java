@@ -0,0 +1,58 @@
+import benchmark.Workload;
+
+/**
+ * Gives the benchmarks access to SudokuBoard, see Workload
+ */
+public class SolverWorkload implements Workload {
+
+	/*
+		Technique.values() copies the array on every call, which would show as allocation of every pass
+	 */
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	@Override
+	public Integer[][] solve(Integer[][] puzzle) {
+		return new SudokuBoard(copy(puzzle)).solveSudoku();
+	}
+
+	@Override
+	public Object prepare(Integer[][] puzzle, String technique) {
+		SudokuBoard board = new SudokuBoard(copy(puzzle));
+		if (technique(technique) != Technique.UNIQUE_POSSIBILITIES)
+			board.apply(Technique.UNIQUE_POSSIBILITIES);
+		return board;
+	}
+
+	@Override
+	public long[] save(Object board) {
+		SudokuBoard sudokuBoard = (SudokuBoard) board;
+		long[] candidates = new long[sudokuBoard.getSize() * sudokuBoard.getSize()];
+		sudokuBoard.getCandidates(candidates);
+		return candidates;
+	}
+
+	@Override
+	public void restore(Object board, long[] candidates) {
+		((SudokuBoard) board).restore(candidates);
+	}
+
+	@Override
+	public boolean apply(Object board, String technique) {
+		return ((SudokuBoard) board).apply(technique(technique));
+	}
+
+	private static Technique technique(String method) {
+		for (Technique technique : TECHNIQUES) {
+			if (technique.getMethod().equals(method))
+				return technique;
+		}
+		throw new IllegalArgumentException("Unknown technique " + method);
+	}
+
+	private static Integer[][] copy(Integer[][] puzzle) {
+		Integer[][] board = new Integer[puzzle.length][];
+		for (int i = 0; i < puzzle.length; i++)
+			board[i] = puzzle[i].clone();
+		return board;
+	}
+}
@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Puzzles used by the benchmarks. 9x9 corpora are fixed puzzles with a
+ * unique solution, bigger boards are generated from a seeded shuffle of
+ * a valid grid, so every run measures the same puzzles.
+ */
+public final class Corpus {
+
+	private static final String[] EASY_9 = {
+			"003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+			"200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+			"003090000280300000640107830060001007900080103100409080426915378000003415000040200",
+	};
+
+	private static final String[] HARD_9 = {
+			"800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+			"4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+			"52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+	};
+
+	private static final String[] CLUES_17_9 = {
+			"000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+			"000000010400000000020000000000050604008000300001090000300400200050100000000807000",
+			"000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+			"6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+			"48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5....",
+	};
+
+	private static final int GENERATED = 8;
+
+	private Corpus() {
+	}
+
+	/**
+	 * @param name size and difficulty, 9-easy, 9-hard, 9-17clue,
+	 * 16-easy, 16-hard, 25-easy, 25-hard, 36-easy or 36-hard
+	 * @return the puzzles of the corpus
+	 */
+	public static List<Integer[][]> get(String name) {
+		switch (name) {
+			case "9-easy": return parse(EASY_9);
+			case "9-hard": return parse(HARD_9);
+			case "9-17clue": return parse(CLUES_17_9);
+			case "16-easy": return generate(4, 0.6, GENERATED);
+			case "16-hard": return generate(4, 0.45, GENERATED);
+			case "25-easy": return generate(5, 0.6, GENERATED);
+			case "25-hard": return generate(5, 0.55, GENERATED);
+			case "36-easy": return generate(6, 0.65, GENERATED);
+			case "36-hard": return generate(6, 0.6, GENERATED);
+			default: throw new IllegalArgumentException("Unknown corpus " + name);
+		}
+	}
+
+	private static List<Integer[][]> parse(String[] lines) {
+		List<Integer[][]> puzzles = new ArrayList<>(lines.length);
+		for (String line : lines) {
+			Integer[][] board = new Integer[9][9];
+			for (int cell = 0; cell < 81; cell++) {
+				char symbol = line.charAt(cell);
+				if (symbol != '.' && symbol != '0')
+					board[cell / 9][cell % 9] = symbol - '0';
+			}
+			puzzles.add(board);
+		}
+		return puzzles;
+	}
+
+	/**
+	 * @param n size of a quadrant side
+	 * @param clues fraction of cells left as givens
+	 * @param count amount of puzzles
+	 * @return puzzles built from shuffled valid grids
+	 */
+	private static List<Integer[][]> generate(int n, double clues, int count) {
+		int size = n * n;
+		Random random = new Random(size * 31L + Math.round(clues * 100));
+		List<Integer[][]> puzzles = new ArrayList<>(count);
+		for (int p = 0; p < count; p++) {
+			int[] numbers = permutation(size, random);
+			int[] rows = bandPermutation(n, random);
+			int[] cols = bandPermutation(n, random);
+			Integer[][] board = new Integer[size][size];
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					if (random.nextDouble() >= clues)
+						continue;
+					int row = rows[i];
+					int col = cols[j];
+					board[i][j] = numbers[(n * (row % n) + row / n + col) % size] + 1;
+				}
+			}
+			puzzles.add(board);
+		}
+		return puzzles;
+	}
+
+	private static int[] permutation(int length, Random random) {
+		int[] permutation = new int[length];
+		for (int i = 0; i < length; i++)
+			permutation[i] = i;
+		for (int i = length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = swap;
+		}
+		return permutation;
+	}
+
+	/**
+	 * @return a permutation of rows or columns that keeps the quadrants valid
+	 */
+	private static int[] bandPermutation(int n, Random random) {
+		int[] bands = permutation(n, random);
+		int[] permutation = new int[n * n];
+		for (int band = 0; band < n; band++) {
+			int[] inside = permutation(n, random);
+			for (int i = 0; i < n; i++)
+				permutation[band * n + i] = bands[band] * n + inside[i];
+		}
+		return permutation;
+	}
+}
@@ -0,0 +1,38 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole solve throughput, one puzzle of the corpus per operation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+	@Param({"9-easy", "9-hard", "9-17clue", "16-easy", "16-hard", "25-easy", "25-hard", "36-easy", "36-hard"})
+	public String corpus;
+
+	private Workload workload;
+	private List<Integer[][]> puzzles;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		workload = Workload.load();
+		puzzles = Corpus.get(corpus);
+	}
+
+	@Benchmark
+	public Integer[][] solveSudoku() {
+		Integer[][] puzzle = puzzles.get(next);
+		next = (next + 1) % puzzles.size();
+		return workload.solve(puzzle);
+	}
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single pass of one technique over a board. The boards of the corpus are
+ * built once per iteration and brought back to their saved possibilities
+ * before every pass, so each pass starts from the same state and allocates
+ * only what the technique does. The restore is part of the measured time,
+ * restore measures it alone to subtract it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TechniqueBenchmark {
+
+	@Param({
+			"discardUniquePossibilities",
+			"discardMandatoryNumberInColOrRowForQuadrant",
+			"discardFromQuadrantPossibilities",
+			"spotNakedSubsets",
+			"spotHiddenSubsets",
+			"discardFromXYWing",
+			"discardFromXYZWing",
+			"discardFromXWing",
+			"discardFromSimpleColouring",
+			"discardFromAlternatingChains"
+	})
+	public String technique;
+
+	@Param({"9-hard", "16-hard", "25-hard"})
+	public String corpus;
+
+	private Workload workload;
+	private List<Integer[][]> puzzles;
+	private Object[] boards;
+	private long[][] candidates;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		workload = Workload.load();
+		puzzles = Corpus.get(corpus);
+	}
+
+	@Setup(Level.Iteration)
+	public void prepareBoards() {
+		boards = new Object[puzzles.size()];
+		candidates = new long[puzzles.size()][];
+		for (int i = 0; i < boards.length; i++) {
+			boards[i] = workload.prepare(puzzles.get(i), technique);
+			candidates[i] = workload.save(boards[i]);
+		}
+	}
+
+	@Benchmark
+	public boolean apply() {
+		Object board = restoreNext();
+		return workload.apply(board, technique);
+	}
+
+	@Benchmark
+	public Object restore() {
+		return restoreNext();
+	}
+
+	private Object restoreNext() {
+		Object board = boards[next];
+		workload.restore(board, candidates[next]);
+		next = (next + 1) % boards.length;
+		return board;
+	}
+}
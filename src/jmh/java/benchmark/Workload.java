@@ -0,0 +1,55 @@
+package benchmark;
+
+/**
+ * Entry point to the solver for the benchmarks. The solver lives in the
+ * default package, which JMH benchmarks can't import, so the default package
+ * class SolverWorkload implements this interface and is loaded by name once
+ * per trial.
+ */
+public interface Workload {
+
+	/**
+	 * Solves a copy of the puzzle
+	 * @param puzzle puzzle to solve, left untouched
+	 * @return the solved board
+	 */
+	Integer[][] solve(Integer[][] puzzle);
+
+	/**
+	 * Builds a board ready to apply the technique, every technique but
+	 * discardUniquePossibilities gets the board already propagated
+	 * @param puzzle puzzle to load, left untouched
+	 * @param technique name of the SudokuBoard method
+	 * @return the board
+	 */
+	Object prepare(Integer[][] puzzle, String technique);
+
+	/**
+	 * @param board board built by prepare
+	 * @return the possibilities of every point of the board
+	 */
+	long[] save(Object board);
+
+	/**
+	 * Brings the board back to the possibilities saved, without allocating
+	 * @param board board built by prepare
+	 * @param candidates possibilities given by save for the same board
+	 */
+	void restore(Object board, long[] candidates);
+
+	/**
+	 * Applies the technique once
+	 * @param board board built by prepare
+	 * @param technique name of the SudokuBoard method
+	 * @return true if possibilities were discarded
+	 */
+	boolean apply(Object board, String technique);
+
+	static Workload load() {
+		try {
+			return (Workload) Class.forName("SolverWorkload").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("SolverWorkload is not on the classpath", e);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Solves many puzzles in parallel on a work-stealing pool. Every worker
+ * reuses its own SudokuBoard from a BoardPool, so no state is shared between
+ * the workers and no board is built per puzzle.
+ * The puzzles are read lazily and at most maxInFlight of them are being solved
+ * or waiting to be consumed at any time, which keeps the memory bounded
+ * whatever the size of the input.
+ */
+public class BatchSolver implements AutoCloseable {
+
+	private final ForkJoinPool pool;
+	private final int maxInFlight;
+	private final BoardPool boards;
+
+	/**
+	 * Uses every available core
+	 */
+	public BatchSolver() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism amount of worker threads
+	 */
+	public BatchSolver(int parallelism) {
+		this(parallelism, parallelism * 4);
+	}
+
+	/**
+	 * @param parallelism amount of worker threads
+	 * @param maxInFlight maximum amount of puzzles submitted but not consumed yet
+	 */
+	public BatchSolver(int parallelism, int maxInFlight) {
+		this(parallelism, maxInFlight, SolverMetrics.NONE);
+	}
+
+	/**
+	 * @param parallelism amount of worker threads
+	 * @param maxInFlight maximum amount of puzzles submitted but not consumed yet
+	 * @param metrics listener shared by every board, must be thread safe
+	 */
+	public BatchSolver(int parallelism, int maxInFlight, SolverMetrics metrics) {
+		this(parallelism, maxInFlight, metrics, null);
+	}
+
+	/**
+	 * @param parallelism amount of worker threads
+	 * @param maxInFlight maximum amount of puzzles submitted but not consumed yet
+	 * @param metrics listener shared by every board, must be thread safe
+	 * @param cache cache of solutions shared by every worker, null to solve every puzzle
+	 */
+	public BatchSolver(int parallelism, int maxInFlight, SolverMetrics metrics, SolutionCache cache) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be positive, got " + parallelism);
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("maxInFlight must be positive, got " + maxInFlight);
+		this.pool = new ForkJoinPool(parallelism);
+		this.maxInFlight = maxInFlight;
+		this.boards = new BoardPool(metrics, cache);
+	}
+
+	/**
+	 * Solves the puzzles and gives the results in the same order as the input.
+	 * The consumer runs on the calling thread
+	 * @param puzzles puzzles to solve, they are filled in place
+	 * @param results consumer of the results
+	 */
+	public void solveOrdered(Iterator<Integer[][]> puzzles, Consumer<Result> results) {
+		ArrayDeque<ForkJoinTask<Result>> pending = new ArrayDeque<>(maxInFlight);
+		long position = 0;
+		while (puzzles.hasNext()) {
+			if (pending.size() == maxInFlight)
+				results.accept(pending.poll().join());
+			pending.add(pool.submit(task(position++, puzzles.next())));
+		}
+		while (!pending.isEmpty())
+			results.accept(pending.poll().join());
+	}
+
+	public void solveOrdered(Stream<Integer[][]> puzzles, Consumer<Result> results) {
+		solveOrdered(puzzles.iterator(), results);
+	}
+
+	/**
+	 * Solves the puzzles and gives the results as soon as they are solved,
+	 * use Result.getPosition() to match them with the input.
+	 * The consumer runs on the calling thread
+	 * @param puzzles puzzles to solve, they are filled in place
+	 * @param results consumer of the results
+	 */
+	public void solveUnordered(Iterator<Integer[][]> puzzles, Consumer<Result> results) {
+		CompletionService<Result> completed = new ExecutorCompletionService<>(pool);
+		int inFlight = 0;
+		long position = 0;
+		while (puzzles.hasNext()) {
+			if (inFlight == maxInFlight) {
+				results.accept(take(completed));
+				inFlight--;
+			}
+			completed.submit(task(position++, puzzles.next()));
+			inFlight++;
+		}
+		for (; inFlight > 0; inFlight--)
+			results.accept(take(completed));
+	}
+
+	public void solveUnordered(Stream<Integer[][]> puzzles, Consumer<Result> results) {
+		solveUnordered(puzzles.iterator(), results);
+	}
+
+	/**
+	 * Solves every puzzle of a file written one per line and writes the
+	 * solutions to another file in the same order. Puzzles without solution
+	 * are written as a line of empty cells
+	 * @param input file with the puzzles
+	 * @param output file for the solutions, replaced if it exists
+	 */
+	public void solveFile(Path input, Path output) throws IOException {
+		try (PuzzleReader reader = new PuzzleReader(input);
+			 PuzzleWriter writer = new PuzzleWriter(output)) {
+			solveOrdered(reader, result -> {
+				try {
+					if (result.getSolution() == null)
+						writer.writeEmpty(result.getPuzzle().length);
+					else
+						writer.write(result.getSolution());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private Callable<Result> task(long position, Integer[][] puzzle) {
+		return () -> new Result(position, puzzle, boards.solve(puzzle));
+	}
+
+	private static Result take(CompletionService<Result> completed) {
+		try {
+			return completed.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a solution", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Solution of one puzzle of the batch
+	 */
+	public static class Result {
+		private final long position;
+		private final Integer[][] puzzle;
+		private final Integer[][] solution;
+
+		Result(long position, Integer[][] puzzle, Integer[][] solution) {
+			this.position = position;
+			this.puzzle = puzzle;
+			this.solution = solution;
+		}
+
+		/**
+		 * @return position of the puzzle in the input, starting at 0
+		 */
+		public long getPosition() {
+			return position;
+		}
+
+		public Integer[][] getPuzzle() {
+			return puzzle;
+		}
+
+		/**
+		 * @return the solved board, null if the puzzle has no solution
+		 */
+		public Integer[][] getSolution() {
+			return solution;
+		}
+	}
+}
@@ -0,0 +1,214 @@
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Packed binary form of the boards of one size. Every cell takes the bits
+ * needed for the numbers from 0 to size, 0 being an empty cell: 4 bits for
+ * 9x9, 5 for 16x16 and 25x25 and 6 for 36x36. The cells are written row by
+ * row from the most significant bit and every board is padded to whole bytes,
+ * so all the boards of a size take getBytes() and a file of them can be read
+ * at any position. Candidates take size bits per cell, one per number.
+ * Works with heap and direct buffers, and is thread safe.
+ */
+public class BoardCodec {
+
+	private final int size;
+	private final int cells;
+	private final int bits;
+	private final int bytes;
+	private final int candidateBytes;
+
+	/**
+	 * @param size size of the boards
+	 */
+	public BoardCodec(int size) throws IllegalArgumentException {
+		int n = (int) Math.sqrt(size);
+		if (n * n != size || size == 0)
+			throw new IllegalArgumentException("The matrix must be square");
+		if (size > Point.MAX_NUMBERS)
+			throw new IllegalArgumentException("The matrix can not be bigger than " + Point.MAX_NUMBERS);
+		this.size = size;
+		this.cells = size * size;
+		this.bits = Integer.SIZE - Integer.numberOfLeadingZeros(size);
+		this.bytes = (cells * bits + 7) / 8;
+		this.candidateBytes = (cells * size + 7) / 8;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return bits taken by a cell
+	 */
+	public int getBits() {
+		return bits;
+	}
+
+	/**
+	 * @return bytes taken by a board
+	 */
+	public int getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return bytes taken by the candidates of a board
+	 */
+	public int getCandidateBytes() {
+		return candidateBytes;
+	}
+
+	/**
+	 * Writes getBytes() bytes at the position of the buffer
+	 * @param board board to write, null for the empty cells
+	 * @param out buffer with room for the board
+	 */
+	public void encode(Integer[][] board, ByteBuffer out) throws IllegalArgumentException {
+		if (board.length != size)
+			throw new IllegalArgumentException("Expected a board of size " + size + ", got " + board.length);
+		long pending = 0;
+		int count = 0;
+		for (Integer[] row : board) {
+			if (row.length != size)
+				throw new IllegalArgumentException("The matrix must be square");
+			for (Integer cell : row) {
+				int number = cell == null ? 0 : cell;
+				if (number < 0 || number > size)
+					throw new IllegalArgumentException("Invalid number " + number);
+				pending = pending << bits | number;
+				count += bits;
+				if (count >= Byte.SIZE) {
+					count -= Byte.SIZE;
+					out.put((byte) (pending >>> count));
+				}
+			}
+		}
+		if (count > 0)
+			out.put((byte) (pending << (Byte.SIZE - count)));
+	}
+
+	/**
+	 * @param in buffer positioned at a board
+	 * @return the board read, null for the empty cells
+	 */
+	public Integer[][] decode(ByteBuffer in) throws IllegalArgumentException {
+		Integer[][] board = new Integer[size][size];
+		decode(in, board);
+		return board;
+	}
+
+	/**
+	 * Reads getBytes() bytes at the position of the buffer
+	 * @param in buffer positioned at a board
+	 * @param board where the board is read, null for the empty cells
+	 */
+	public void decode(ByteBuffer in, Integer[][] board) throws IllegalArgumentException {
+		int mask = (1 << bits) - 1;
+		long pending = 0;
+		int count = 0;
+		for (Integer[] row : board) {
+			for (int j = 0; j < size; j++) {
+				if (count < bits) {
+					pending = pending << Byte.SIZE | (in.get() & 0xff);
+					count += Byte.SIZE;
+				}
+				count -= bits;
+				int number = (int) (pending >>> count) & mask;
+				if (number > size)
+					throw new IllegalArgumentException("Invalid number " + number);
+				row[j] = number == 0 ? null : number;
+			}
+		}
+	}
+
+	/**
+	 * Writes boards until there are no more or the next one doesn't fit
+	 * @param boards boards to write, the ones not written are left in the iterator
+	 * @param out buffer the boards are written to
+	 * @return amount of boards written
+	 */
+	public int encodeAll(Iterator<Integer[][]> boards, ByteBuffer out) throws IllegalArgumentException {
+		int written = 0;
+		while (out.remaining() >= bytes && boards.hasNext()) {
+			encode(boards.next(), out);
+			written++;
+		}
+		return written;
+	}
+
+	/**
+	 * Reads every whole board left in the buffer, a partial one at the end is
+	 * left for the next call
+	 * @param in buffer with the boards
+	 * @param boards consumer of the boards read
+	 * @return amount of boards read
+	 */
+	public int decodeAll(ByteBuffer in, Consumer<Integer[][]> boards) throws IllegalArgumentException {
+		int read = 0;
+		while (in.remaining() >= bytes) {
+			boards.accept(decode(in));
+			read++;
+		}
+		return read;
+	}
+
+	/**
+	 * Writes getCandidateBytes() bytes at the position of the buffer
+	 * @param masks possibilities of every cell, one bit per number, as given by SudokuBoard.getCandidates
+	 * @param out buffer with room for the candidates
+	 */
+	public void encodeCandidates(long[] masks, ByteBuffer out) throws IllegalArgumentException {
+		if (masks.length != cells)
+			throw new IllegalArgumentException("Expected " + cells + " cells, got " + masks.length);
+		long full = Point.fullMask(size);
+		int high = Math.max(0, size - Integer.SIZE);
+		int low = size - high;
+		long pending = 0;
+		int count = 0;
+		for (long mask : masks) {
+			if ((mask & ~full) != 0)
+				throw new IllegalArgumentException("Invalid possibilities " + Long.toBinaryString(mask));
+			for (int part = high > 0 ? 0 : 1; part < 2; part++) {
+				int width = part == 0 ? high : low;
+				long value = part == 0 ? mask >>> low : mask & 0xffffffffL;
+				pending = pending << width | value;
+				count += width;
+				while (count >= Byte.SIZE) {
+					count -= Byte.SIZE;
+					out.put((byte) (pending >>> count));
+				}
+			}
+		}
+		if (count > 0)
+			out.put((byte) (pending << (Byte.SIZE - count)));
+	}
+
+	/**
+	 * Reads getCandidateBytes() bytes at the position of the buffer
+	 * @param in buffer positioned at the candidates
+	 * @param masks where the possibilities of every cell are read
+	 */
+	public void decodeCandidates(ByteBuffer in, long[] masks) throws IllegalArgumentException {
+		if (masks.length != cells)
+			throw new IllegalArgumentException("Expected " + cells + " cells, got " + masks.length);
+		int high = Math.max(0, size - Integer.SIZE);
+		int low = size - high;
+		long pending = 0;
+		int count = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			long mask = 0;
+			for (int part = high > 0 ? 0 : 1; part < 2; part++) {
+				int width = part == 0 ? high : low;
+				while (count < width) {
+					pending = pending << Byte.SIZE | (in.get() & 0xff);
+					count += Byte.SIZE;
+				}
+				count -= width;
+				mask = mask << width | (pending >>> count) & ((1L << width) - 1);
+			}
+			masks[cell] = mask;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable lookup tables for a board of a given size. Cells are addressed
+ * as row * size + col, the same order SudokuBoard keeps its points in.
+ * The arrays returned by the getters are shared and must not be modified.
+ */
+public final class BoardIndex {
+
+	private static final ConcurrentHashMap<Integer, BoardIndex> INDEXES = new ConcurrentHashMap<>();
+
+	private final int n;
+	private final int size;
+	private final int[] rowOf;
+	private final int[] colOf;
+	private final int[] quadrantOf;
+	private final int[][] rows;
+	private final int[][] cols;
+	private final int[][] quadrants;
+	private final int[][] houses;
+	private final int[][] peers;
+
+	private BoardIndex(int n) {
+		this.n = n;
+		this.size = n * n;
+		int cells = size * size;
+
+		this.rowOf = new int[cells];
+		this.colOf = new int[cells];
+		this.quadrantOf = new int[cells];
+		this.rows = new int[size][size];
+		this.cols = new int[size][size];
+		this.quadrants = new int[size][size];
+
+		int[] quadrantFill = new int[size];
+		for (int cell = 0; cell < cells; cell++) {
+			int row = cell / size;
+			int col = cell % size;
+			int quadrant = col / n + (row / n) * n;
+			rowOf[cell] = row;
+			colOf[cell] = col;
+			quadrantOf[cell] = quadrant;
+			rows[row][col] = cell;
+			cols[col][row] = cell;
+			quadrants[quadrant][quadrantFill[quadrant]++] = cell;
+		}
+
+		this.houses = new int[size * 3][];
+		for (int i = 0; i < size; i++) {
+			houses[i] = rows[i];
+			houses[size + i] = cols[i];
+			houses[2 * size + i] = quadrants[i];
+		}
+
+		this.peers = new int[cells][];
+		for (int cell = 0; cell < cells; cell++) {
+			int[] peer = new int[3 * (size - 1) - 2 * (n - 1)];
+			int count = 0;
+			for (int other = 0; other < cells; other++) {
+				if (other != cell && (rowOf[other] == rowOf[cell]
+						|| colOf[other] == colOf[cell]
+						|| quadrantOf[other] == quadrantOf[cell]))
+					peer[count++] = other;
+			}
+			peers[cell] = peer;
+		}
+	}
+
+	/**
+	 * @param n size of a quadrant side, 3 for a 9x9 board
+	 * @return the shared index for boards of size n * n
+	 */
+	public static BoardIndex of(int n) {
+		return INDEXES.computeIfAbsent(n, BoardIndex::new);
+	}
+
+	public int getN() {
+		return n;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of cells of the board
+	 */
+	public int getCells() {
+		return size * size;
+	}
+
+	public int cell(int row, int col) {
+		return row * size + col;
+	}
+
+	public int rowOf(int cell) {
+		return rowOf[cell];
+	}
+
+	public int colOf(int cell) {
+		return colOf[cell];
+	}
+
+	public int quadrantOf(int cell) {
+		return quadrantOf[cell];
+	}
+
+	/**
+	 * @return true if the cells are different and share a row, column or quadrant
+	 */
+	public boolean sees(int a, int b) {
+		return a != b && (rowOf[a] == rowOf[b] || colOf[a] == colOf[b] || quadrantOf[a] == quadrantOf[b]);
+	}
+
+	/**
+	 * @param row row to find
+	 * @return the cells of the row, ordered by column
+	 */
+	public int[] getRow(int row) {
+		return rows[row];
+	}
+
+	/**
+	 * @param col column to find
+	 * @return the cells of the column, ordered by row
+	 */
+	public int[] getCol(int col) {
+		return cols[col];
+	}
+
+	/**
+	 * @param quadrant quadrant to find
+	 * @return the cells of the quadrant, ordered by row and then by column
+	 */
+	public int[] getQuadrant(int quadrant) {
+		return quadrants[quadrant];
+	}
+
+	/**
+	 * Rows come first, then columns and then quadrants
+	 * @return every house of the board
+	 */
+	public int[][] getHouses() {
+		return houses;
+	}
+
+	/**
+	 * @param cell cell to find
+	 * @return the cells sharing a row, column or quadrant with the cell
+	 */
+	public int[] getPeers(int cell) {
+		return peers[cell];
+	}
+}
@@ -0,0 +1,106 @@
+import java.util.function.Function;
+
+/**
+ * Keeps one SudokuBoard per thread and board size, reloaded with reset for
+ * every new puzzle, so a thread solving puzzles of the same size builds its
+ * board only once. Pools built with a SolutionCache look every puzzle up
+ * before solving it.
+ */
+public class BoardPool {
+
+	private final SolverMetrics metrics;
+	private final SolutionCache cache;
+	private final long nodeLimit;
+	private final Function<Integer[][], Integer[][]> solver = this::solveLoaded;
+	/*
+		Board of every size for the current thread, indexed by size
+	 */
+	private final ThreadLocal<SudokuBoard[]> boards =
+			ThreadLocal.withInitial(() -> new SudokuBoard[Point.MAX_NUMBERS + 1]);
+
+	public BoardPool() {
+		this(SolverMetrics.NONE);
+	}
+
+	/**
+	 * @param metrics listener given to every board, must be thread safe
+	 */
+	public BoardPool(SolverMetrics metrics) {
+		this(metrics, null);
+	}
+
+	/**
+	 * @param metrics listener given to every board, must be thread safe
+	 * @param cache cache of solutions, null to solve every puzzle
+	 */
+	public BoardPool(SolverMetrics metrics, SolutionCache cache) {
+		this(metrics, cache, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param metrics listener given to every board, must be thread safe
+	 * @param cache cache of solutions, null to solve every puzzle
+	 * @param nodeLimit most guesses of the search of every solve
+	 */
+	public BoardPool(SolverMetrics metrics, SolutionCache cache, long nodeLimit) throws IllegalArgumentException {
+		if (nodeLimit < 1)
+			throw new IllegalArgumentException("Node limit must be positive, got " + nodeLimit);
+		this.metrics = metrics;
+		this.cache = cache;
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * The board belongs to the calling thread and is reloaded by the next
+	 * call with a puzzle of the same size, it must not be kept
+	 * @param puzzle board to solve, null for the empty cells
+	 * @return a board of the calling thread loaded with the puzzle
+	 */
+	public SudokuBoard load(Integer[][] puzzle) throws IllegalArgumentException {
+		SudokuBoard[] cache = boards.get();
+		int size = puzzle.length;
+		if (size >= cache.length)
+			return newBoard(puzzle);
+		if (cache[size] == null) {
+			cache[size] = newBoard(puzzle);
+			return cache[size];
+		}
+		cache[size].reset(puzzle);
+		return cache[size];
+	}
+
+	private Integer[][] solveLoaded(Integer[][] puzzle) {
+		SudokuBoard board = load(puzzle);
+		Integer[][] solution = board.solveSudoku();
+		if (solution == null && board.isLimitReached())
+			throw new IllegalStateException("Gave up after " + nodeLimit + " guesses");
+		return solution;
+	}
+
+	private SudokuBoard newBoard(Integer[][] puzzle) {
+		SudokuBoard board = new SudokuBoard(puzzle, metrics);
+		board.setNodeLimit(nodeLimit);
+		return board;
+	}
+
+	/**
+	 * @param puzzle board to solve, filled in place
+	 * @return the solved board, null if the sudoku has no solution
+	 * @throws IllegalStateException if the search reached the node limit
+	 */
+	public Integer[][] solve(Integer[][] puzzle) throws IllegalArgumentException, IllegalStateException {
+		if (cache == null)
+			return solver.apply(puzzle);
+		return cache.solve(puzzle, solver);
+	}
+
+	/**
+	 * @param puzzle board to grade, filled in place
+	 * @param nanos time budget, 0 for none
+	 * @param steps most technique runs that discard something, 0 for no limit
+	 * @return the grade of the puzzle
+	 */
+	public Grade grade(Integer[][] puzzle, long nanos, int steps) throws IllegalArgumentException {
+		return load(puzzle).grade(nanos, steps);
+	}
+}
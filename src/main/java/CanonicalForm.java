@@ -0,0 +1,414 @@
+import java.util.Arrays;
+
+/**
+ * Finds the representative of a puzzle among every puzzle equal to it under
+ * the symmetries of sudoku: relabelling the numbers, reordering the bands,
+ * the rows inside a band, the stacks, the columns inside a stack, and
+ * transposing. The representative is the smallest grid read row by row, with
+ * the empty cells as 0 and the numbers relabelled in order of appearance,
+ * among the ones whose rows and columns are sorted by their amount of clues:
+ * inside every band and stack from the fewest clues, and the bands and stacks
+ * by those sorted amounts. The amounts don't change with relabelling, so only
+ * rows and columns with the same amount are ever swapped, and every row is
+ * added while the grid is still not bigger than the best one found.
+ * Boards bigger than 9x9 have too many orders, they are only relabelled.
+ * An instance keeps the transform of the last puzzle and is not thread safe.
+ */
+public class CanonicalForm {
+
+	/*
+		Most rows and columns placed for one puzzle, past it the best grid found
+		is kept, it's still a valid key but equal puzzles may get different ones
+	 */
+	private static final int MAX_NODES = 1 << 16;
+	/*
+		Biggest quadrant side whose rows and columns are reordered
+	 */
+	private static final int MAX_REORDERED = 3;
+
+	private final int n;
+	private final int size;
+	/*
+		Puzzle being canonicalized, transposed when transposed is set
+	 */
+	private final int[] source;
+	private boolean transposed;
+	/*
+		Clues of every row and column of the source, and the clues of the rows
+		of every band, and of the columns of every stack, sorted from the fewest
+		as digits in base size + 1
+	 */
+	private final int[] rowClues;
+	private final int[] colClues;
+	private final int[] bandClues;
+	private final int[] stackClues;
+	private final int[] sorted;
+	/*
+		Grid being built and the source row and column of every row and column
+	 */
+	private final int[] current;
+	private final int[] rows;
+	private final int[] cols;
+	/*
+		labels[p][number] is the label of the number after placing p rows, 0 if
+		it didn't appear yet, and nextLabel[p] the label of the next new number
+	 */
+	private final int[][] labels;
+	private final int[] nextLabel;
+	private final boolean[] usedRow;
+	private final boolean[] usedBand;
+	private final boolean[] usedCol;
+	private final boolean[] usedStack;
+
+	private final int[] best;
+	private final int[] bestRows;
+	private final int[] bestCols;
+	private final int[] bestLabels;
+	private final int[] bestNumbers;
+	private boolean bestTransposed;
+	private boolean found;
+	private int saves;
+	private int nodes;
+
+	/**
+	 * @param size size of the boards to canonicalize
+	 */
+	public CanonicalForm(int size) {
+		this.n = (int) Math.sqrt(size);
+		if (n * n != size)
+			throw new IllegalArgumentException("The matrix must be square");
+		this.size = size;
+		this.source = new int[size * size];
+		this.rowClues = new int[size];
+		this.colClues = new int[size];
+		this.bandClues = new int[n];
+		this.stackClues = new int[n];
+		this.sorted = new int[size];
+		this.current = new int[size * size];
+		this.rows = new int[size];
+		this.cols = new int[size];
+		this.labels = new int[size + 1][size + 1];
+		this.nextLabel = new int[size + 1];
+		this.usedRow = new boolean[size];
+		this.usedBand = new boolean[n];
+		this.usedCol = new boolean[size];
+		this.usedStack = new boolean[n];
+		this.best = new int[size * size];
+		this.bestRows = new int[size];
+		this.bestCols = new int[size];
+		this.bestLabels = new int[size + 1];
+		this.bestNumbers = new int[size + 1];
+	}
+
+	/**
+	 * @param puzzle puzzle to canonicalize, numbers from 1 to size and null for the empty cells
+	 * @return the cells of the representative row by row, overwritten by the next call
+	 */
+	public int[] canonicalize(Integer[][] puzzle) throws IllegalArgumentException {
+		if (puzzle.length != size)
+			throw new IllegalArgumentException("Expected a board of size " + size + ", got " + puzzle.length);
+		found = false;
+		nodes = 0;
+		if (n > MAX_REORDERED) {
+			load(puzzle, false);
+			for (int i = 0; i < size; i++) {
+				rows[i] = i;
+				cols[i] = i;
+			}
+			nextLabel[0] = 1;
+			Arrays.fill(labels[0], 0);
+			for (int p = 0; p < size; p++)
+				placeRow(p);
+			save();
+			return best;
+		}
+
+		load(puzzle, false);
+		long straight = shape();
+		load(puzzle, true);
+		long transpose = shape();
+		if (straight <= transpose) {
+			load(puzzle, false);
+			shape();
+			placeStack(0);
+		}
+		if (transpose <= straight) {
+			load(puzzle, true);
+			shape();
+			placeStack(0);
+		}
+		return best;
+	}
+
+	/**
+	 * @return false if the node budget ran out, then equal puzzles may get different representatives
+	 */
+	public boolean isExact() {
+		return nodes <= MAX_NODES;
+	}
+
+	/**
+	 * Applies the transform of the last canonicalized puzzle
+	 * @param board board of the same puzzle, usually its solution, null for the empty cells
+	 * @param canonical where the transformed cells are written row by row
+	 */
+	public void toCanonical(Integer[][] board, byte[] canonical) {
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				Integer number = bestTransposed ? board[bestCols[j]][bestRows[i]] : board[bestRows[i]][bestCols[j]];
+				canonical[i * size + j] = (byte) (number == null ? 0 : bestLabels[number]);
+			}
+		}
+	}
+
+	/**
+	 * Reverts the transform of the last canonicalized puzzle
+	 * @param canonical cells of a representative row by row, as given by toCanonical
+	 * @param board where the cells of the original puzzle are written, null for the empty ones
+	 */
+	public void fromCanonical(byte[] canonical, Integer[][] board) {
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int label = canonical[i * size + j];
+				Integer number = label == 0 ? null : bestNumbers[label];
+				if (bestTransposed)
+					board[bestCols[j]][bestRows[i]] = number;
+				else
+					board[bestRows[i]][bestCols[j]] = number;
+			}
+		}
+	}
+
+	private void load(Integer[][] puzzle, boolean transpose) {
+		transposed = transpose;
+		for (int i = 0; i < size; i++) {
+			if (puzzle[i].length != size)
+				throw new IllegalArgumentException("The matrix must be square");
+			for (int j = 0; j < size; j++) {
+				Integer number = transpose ? puzzle[j][i] : puzzle[i][j];
+				if (number != null && (number < 1 || number > size)) {
+					int row = transpose ? j : i;
+					int col = transpose ? i : j;
+					throw new IllegalArgumentException("Invalid number " + number + " at (" + row + ", " + col + ")");
+				}
+				source[i * size + j] = number == null ? 0 : number;
+			}
+		}
+	}
+
+	/**
+	 * Counts the clues of the source
+	 * @return the clues of the bands and then of the stacks, both sorted,
+	 * the orientation with the smallest value gives the smallest grids
+	 */
+	private long shape() {
+		Arrays.fill(rowClues, 0);
+		Arrays.fill(colClues, 0);
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (source[i * size + j] != 0) {
+					rowClues[i]++;
+					colClues[j]++;
+				}
+			}
+		}
+		for (int b = 0; b < n; b++) {
+			bandClues[b] = sortedClues(rowClues, b);
+			stackClues[b] = sortedClues(colClues, b);
+		}
+		long shape = 0;
+		for (int[] clues : new int[][]{bandClues, stackClues}) {
+			System.arraycopy(clues, 0, sorted, 0, n);
+			Arrays.sort(sorted, 0, n);
+			for (int b = 0; b < n; b++)
+				shape = shape * (long) Math.pow(size + 1, n) + sorted[b];
+		}
+		return shape;
+	}
+
+	/**
+	 * @param clues clues of every row, or column
+	 * @param band band, or stack
+	 * @return the clues of its rows, or columns, sorted from the fewest as digits in base size + 1
+	 */
+	private int sortedClues(int[] clues, int band) {
+		System.arraycopy(clues, band * n, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+		int value = 0;
+		for (int k = 0; k < n; k++)
+			value = value * (size + 1) + sorted[k];
+		return value;
+	}
+
+	/**
+	 * Tries every stack with the fewest clues left at the position
+	 * @param position position of the stack
+	 */
+	private void placeStack(int position) {
+		if (position == n) {
+			nextLabel[0] = 1;
+			Arrays.fill(labels[0], 0);
+			placeRows(0, !found);
+			return;
+		}
+		int least = Integer.MAX_VALUE;
+		for (int s = 0; s < n; s++) {
+			if (!usedStack[s])
+				least = Math.min(least, stackClues[s]);
+		}
+		for (int s = 0; s < n; s++) {
+			if (usedStack[s] || stackClues[s] != least)
+				continue;
+			usedStack[s] = true;
+			placeColumn(position, 0, s);
+			usedStack[s] = false;
+		}
+	}
+
+	/**
+	 * Tries every column of the stack with the fewest clues left at the position
+	 * @param position position of the stack
+	 * @param k position of the column inside the stack
+	 * @param stack stack of the source placed there
+	 */
+	private void placeColumn(int position, int k, int stack) {
+		if (k == n) {
+			placeStack(position + 1);
+			return;
+		}
+		if (++nodes > MAX_NODES)
+			return;
+		int least = Integer.MAX_VALUE;
+		for (int col = stack * n; col < stack * n + n; col++) {
+			if (!usedCol[col])
+				least = Math.min(least, colClues[col]);
+		}
+		for (int col = stack * n; col < stack * n + n; col++) {
+			if (usedCol[col] || colClues[col] != least)
+				continue;
+			usedCol[col] = true;
+			cols[position * n + k] = col;
+			placeColumn(position, k + 1, stack);
+			usedCol[col] = false;
+		}
+	}
+
+	/**
+	 * Tries every row with the fewest clues left at the position, the rows of
+	 * a band stay together and the bands with the fewest clues go first
+	 * @param p position of the row
+	 * @param less true if the rows placed are already smaller than the best grid found
+	 */
+	private void placeRows(int p, boolean less) {
+		if (p == size) {
+			if (less)
+				save();
+			return;
+		}
+		if (p % n != 0) {
+			int band = rows[p - 1] / n;
+			int least = leastClues(band);
+			for (int row = band * n; row < band * n + n; row++) {
+				if (!usedRow[row] && rowClues[row] == least)
+					less = tryRow(p, row, less);
+			}
+			return;
+		}
+		int least = Integer.MAX_VALUE;
+		for (int band = 0; band < n; band++) {
+			if (!usedBand[band])
+				least = Math.min(least, bandClues[band]);
+		}
+		for (int band = 0; band < n; band++) {
+			if (usedBand[band] || bandClues[band] != least)
+				continue;
+			usedBand[band] = true;
+			int fewest = leastClues(band);
+			for (int row = band * n; row < band * n + n; row++) {
+				if (rowClues[row] == fewest)
+					less = tryRow(p, row, less);
+			}
+			usedBand[band] = false;
+		}
+	}
+
+	/**
+	 * @return the fewest clues of the rows of the band not placed yet
+	 */
+	private int leastClues(int band) {
+		int least = Integer.MAX_VALUE;
+		for (int row = band * n; row < band * n + n; row++) {
+			if (!usedRow[row])
+				least = Math.min(least, rowClues[row]);
+		}
+		return least;
+	}
+
+	/**
+	 * @param less true if the rows placed before are smaller than the best grid found
+	 * @return the same for the next row tried at the position, once a grid is
+	 * saved from here the rows placed before are the ones of the best grid
+	 */
+	private boolean tryRow(int p, int row, boolean less) {
+		if (++nodes > MAX_NODES)
+			return less;
+		rows[p] = row;
+		placeRow(p);
+		int compare = less ? -1 : compareRow(p);
+		if (compare > 0)
+			return less;
+		int before = saves;
+		usedRow[row] = true;
+		placeRows(p + 1, compare < 0);
+		usedRow[row] = false;
+		return less && saves == before;
+	}
+
+	/**
+	 * Writes the row at the position in current, labelling its new numbers
+	 * @param p position of the row
+	 */
+	private void placeRow(int p) {
+		int[] label = labels[p + 1];
+		System.arraycopy(labels[p], 0, label, 0, size + 1);
+		int next = nextLabel[p];
+		for (int j = 0; j < size; j++) {
+			int number = source[rows[p] * size + cols[j]];
+			if (number != 0 && label[number] == 0)
+				label[number] = next++;
+			current[p * size + j] = label[number];
+		}
+		nextLabel[p + 1] = next;
+	}
+
+	/**
+	 * @param p position of the row
+	 * @return the comparison of the row of current with the one of the best grid found
+	 */
+	private int compareRow(int p) {
+		for (int i = p * size; i < p * size + size; i++) {
+			if (current[i] != best[i])
+				return current[i] - best[i];
+		}
+		return 0;
+	}
+
+	private void save() {
+		found = true;
+		saves++;
+		System.arraycopy(current, 0, best, 0, best.length);
+		System.arraycopy(rows, 0, bestRows, 0, size);
+		System.arraycopy(cols, 0, bestCols, 0, size);
+		bestTransposed = transposed;
+		System.arraycopy(labels[size], 0, bestLabels, 0, size + 1);
+		/*
+			Numbers missing from the puzzle can take any of the labels left
+		 */
+		int next = nextLabel[size];
+		for (int number = 1; number <= size; number++) {
+			if (bestLabels[number] == 0)
+				bestLabels[number] = next++;
+			bestNumbers[bestLabels[number]] = number;
+		}
+	}
+}
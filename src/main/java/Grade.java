@@ -0,0 +1,92 @@
+/**
+ * Difficulty of a puzzle found by SudokuBoard.grade: the hardest technique
+ * needed when the easiest one that discards something is applied at every
+ * step, and its rating as the score, of the size used for subsets and fish
+ */
+public class Grade {
+
+	/*
+		Score of the puzzles the techniques can't finish, above every technique
+	 */
+	public static final double SEARCH_RATING = 10.0;
+
+	public enum Status {
+		/*
+			Solved by the techniques
+		 */
+		SOLVED,
+		/*
+			Solved, the techniques were not enough and the rest was searched
+		 */
+		SEARCHED,
+		/*
+			The puzzle has no solution
+		 */
+		INVALID,
+		/*
+			The step, time or node budget ran out before the end
+		 */
+		ABORTED
+	}
+
+	private final Status status;
+	private final Technique hardest;
+	/*
+		Rating of the hardest technique, of the biggest size it was used with
+	 */
+	private final double rating;
+	private final int steps;
+	private final int[] uses;
+
+	Grade(Status status, Technique hardest, double rating, int steps, int[] uses) {
+		this.status = status;
+		this.hardest = hardest;
+		this.rating = rating;
+		this.steps = steps;
+		this.uses = uses;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the technique with the highest rating that discarded something,
+	 * rated by the size it was used with, null if no technique did
+	 */
+	public Technique getHardest() {
+		return hardest;
+	}
+
+	/**
+	 * @return rating of the hardest technique, of the biggest subset or fish
+	 * it was used with, SEARCH_RATING if the puzzle had to
+	 * be searched, 0 if it has no solution. Of an aborted grade, a lower bound
+	 */
+	public double getScore() {
+		if (status == Status.SEARCHED)
+			return SEARCH_RATING;
+		if (status == Status.INVALID || hardest == null)
+			return 0;
+		return rating;
+	}
+
+	/**
+	 * @return amount of technique runs that discarded something
+	 */
+	public int getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return amount of runs of the technique that discarded something
+	 */
+	public int getUses(Technique technique) {
+		return uses[technique.ordinal()];
+	}
+
+	@Override
+	public String toString() {
+		return status + " " + getScore() + (hardest == null ? "" : " " + hardest) + " in " + steps + " steps";
+	}
+}
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Checks grids of one size for a number repeated in a row, column or quadrant
+ * without building a SudokuBoard. Every house keeps one mask of the numbers
+ * seen, so a grid is checked in a single pass with one OR and one AND per
+ * cell. Grids can be given as matrices, in the packed format of BoardCodec,
+ * or as a file of packed grids that is memory-mapped by regions.
+ * An instance is not thread safe.
+ */
+public class GridValidator {
+
+	/**
+	 * Result of a grid without conflicts
+	 */
+	public static final int VALID = -1;
+
+	private static final long REGION = 1 << 26;
+
+	private final BoardIndex index;
+	private final int size;
+	private final int[] quadrantOf;
+	/*
+		Bytes of the packed grid being checked
+	 */
+	private final byte[] packed;
+	private final BoardCodec codec;
+	private final long[] rowSeen;
+	private final long[] colSeen;
+	private final long[] quadrantSeen;
+
+	/**
+	 * @param size size of the grids
+	 */
+	public GridValidator(int size) throws IllegalArgumentException {
+		this.codec = new BoardCodec(size);
+		this.index = BoardIndex.of((int) Math.sqrt(size));
+		this.size = size;
+		this.rowSeen = new long[size];
+		this.colSeen = new long[size];
+		this.quadrantSeen = new long[size];
+		this.quadrantOf = new int[size * size];
+		for (int cell = 0; cell < quadrantOf.length; cell++)
+			quadrantOf[cell] = index.quadrantOf(cell);
+		this.packed = new byte[codec.getBytes()];
+	}
+
+	/**
+	 * @param grid grid to check, null for the empty cells
+	 * @param complete whether an empty cell is a conflict
+	 * @return the first cell, row * size + col, whose number is out of range,
+	 * was already seen in one of its houses or is empty when the grid must be
+	 * complete, VALID if there's none
+	 */
+	public int validate(Integer[][] grid, boolean complete) throws IllegalArgumentException {
+		if (grid.length != size)
+			throw new IllegalArgumentException("Expected a board of size " + size + ", got " + grid.length);
+		clear();
+		for (int i = 0; i < size; i++) {
+			Integer[] row = grid[i];
+			if (row.length != size)
+				throw new IllegalArgumentException("The matrix must be square");
+			for (int j = 0; j < size; j++) {
+				if (!check(i, j, row[j] == null ? 0 : row[j], complete))
+					return index.cell(i, j);
+			}
+		}
+		return VALID;
+	}
+
+	/**
+	 * Reads getBytes() of the BoardCodec from the position of the buffer
+	 * @param packed buffer positioned at a grid in the format of BoardCodec
+	 * @param complete whether an empty cell is a conflict
+	 * @return the first conflicting cell as in validate(Integer[][], boolean), VALID if there's none
+	 */
+	public int validate(ByteBuffer packed, boolean complete) {
+		int start = packed.position();
+		int result = validate(packed, start, complete);
+		packed.position(start + codec.getBytes());
+		return result;
+	}
+
+	/**
+	 * Checks every grid of a file written by BoardCodec, one after the other
+	 * @param path file of packed grids
+	 * @param complete whether an empty cell is a conflict
+	 * @param conflicts told about every grid with a conflict
+	 * @return amount of grids checked
+	 */
+	public long validateFile(Path path, boolean complete, Conflicts conflicts) throws IOException {
+		int bytes = codec.getBytes();
+		long region = Math.max(1, REGION / bytes) * bytes;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long grids = channel.size() / bytes;
+			long grid = 0;
+			for (long start = 0; grid < grids; start += region) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						Math.min(region, grids * bytes - start));
+				for (int position = 0; position < buffer.limit(); position += bytes, grid++) {
+					int cell = validate(buffer, position, complete);
+					if (cell != VALID)
+						conflicts.found(grid, cell);
+				}
+			}
+			return grids;
+		}
+	}
+
+	private int validate(ByteBuffer buffer, int start, boolean complete) {
+		buffer.get(start, packed);
+		clear();
+		int bits = codec.getBits();
+		int mask = (1 << bits) - 1;
+		int position = 0;
+		long pending = 0;
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (count < bits) {
+					pending = pending << Byte.SIZE | (packed[position++] & 0xff);
+					count += Byte.SIZE;
+				}
+				count -= bits;
+				if (!check(i, j, (int) (pending >>> count) & mask, complete))
+					return index.cell(i, j);
+			}
+		}
+		return VALID;
+	}
+
+	/**
+	 * @param number number of the cell, 0 if it's empty
+	 * @return false if the cell is a conflict
+	 */
+	private boolean check(int row, int col, int number, boolean complete) {
+		if (number == 0)
+			return !complete;
+		if (number < 0 || number > size)
+			return false;
+		long bit = Point.bit(number);
+		int quadrant = quadrantOf[row * size + col];
+		if (((rowSeen[row] | colSeen[col] | quadrantSeen[quadrant]) & bit) != 0)
+			return false;
+		rowSeen[row] |= bit;
+		colSeen[col] |= bit;
+		quadrantSeen[quadrant] |= bit;
+		return true;
+	}
+
+	private void clear() {
+		Arrays.fill(rowSeen, 0);
+		Arrays.fill(colSeen, 0);
+		Arrays.fill(quadrantSeen, 0);
+	}
+
+	/**
+	 * Listener of the grids with a conflict found by validateFile
+	 */
+	public interface Conflicts {
+		/**
+		 * @param grid position of the grid in the file, starting at 0
+		 * @param cell first conflicting cell of the grid
+		 */
+		void found(long grid, int cell);
+	}
+}
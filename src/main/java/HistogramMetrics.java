@@ -0,0 +1,151 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe SolverMetrics that counts runs, runs that discarded something
+ * and discarded possibilities per technique, and keeps a histogram of the
+ * time taken by the runs with one bucket per power of two nanoseconds.
+ * The counters can be dumped as JSON or in the Prometheus text format.
+ */
+public class HistogramMetrics implements SolverMetrics {
+
+	private static final int BUCKETS = Long.SIZE;
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	private final LongAdder iterations = new LongAdder();
+	private final AtomicLongArray invocations = new AtomicLongArray(TECHNIQUES.length);
+	private final AtomicLongArray fired = new AtomicLongArray(TECHNIQUES.length);
+	private final AtomicLongArray eliminations = new AtomicLongArray(TECHNIQUES.length);
+	private final AtomicLongArray nanos = new AtomicLongArray(TECHNIQUES.length);
+	/*
+		Bucket b of a technique counts the runs that took less than 2^b nanoseconds
+		and at least 2^(b - 1)
+	 */
+	private final AtomicLongArray histogram = new AtomicLongArray(TECHNIQUES.length * BUCKETS);
+
+	@Override
+	public void iteration() {
+		iterations.increment();
+	}
+
+	@Override
+	public void technique(Technique technique, long eliminations, long nanos) {
+		int t = technique.ordinal();
+		invocations.incrementAndGet(t);
+		if (eliminations > 0) {
+			fired.incrementAndGet(t);
+			this.eliminations.addAndGet(t, eliminations);
+		}
+		this.nanos.addAndGet(t, nanos);
+		histogram.incrementAndGet(t * BUCKETS + bucket(nanos));
+	}
+
+	private static int bucket(long nanos) {
+		return Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0)));
+	}
+
+	public long getIterations() {
+		return iterations.sum();
+	}
+
+	public long getInvocations(Technique technique) {
+		return invocations.get(technique.ordinal());
+	}
+
+	/**
+	 * @return runs of the technique that discarded at least one possibility
+	 */
+	public long getFired(Technique technique) {
+		return fired.get(technique.ordinal());
+	}
+
+	public long getEliminations(Technique technique) {
+		return eliminations.get(technique.ordinal());
+	}
+
+	public long getNanos(Technique technique) {
+		return nanos.get(technique.ordinal());
+	}
+
+	/**
+	 * @return the counters as a JSON object, histogram buckets are
+	 * [upper bound in nanoseconds, runs] pairs and empty ones are left out
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder(256 * TECHNIQUES.length);
+		json.append("{\"iterations\":").append(getIterations()).append(",\"techniques\":{");
+		for (Technique technique : TECHNIQUES) {
+			int t = technique.ordinal();
+			if (t > 0)
+				json.append(',');
+			json.append('"').append(technique.getMethod()).append("\":{")
+					.append("\"invocations\":").append(invocations.get(t))
+					.append(",\"fired\":").append(fired.get(t))
+					.append(",\"eliminations\":").append(eliminations.get(t))
+					.append(",\"nanos\":").append(nanos.get(t))
+					.append(",\"histogram\":[");
+			boolean first = true;
+			for (int b = 0; b < BUCKETS; b++) {
+				long count = histogram.get(t * BUCKETS + b);
+				if (count == 0)
+					continue;
+				if (!first)
+					json.append(',');
+				json.append('[').append(upperBound(b)).append(',').append(count).append(']');
+				first = false;
+			}
+			json.append("]}");
+		}
+		return json.append("}}").toString();
+	}
+
+	/**
+	 * @return the counters in the Prometheus text exposition format
+	 */
+	public String toPrometheus() {
+		StringBuilder text = new StringBuilder(1024 * TECHNIQUES.length);
+		text.append("# TYPE sudoku_solver_iterations_total counter\n")
+				.append("sudoku_solver_iterations_total ").append(getIterations()).append('\n');
+		counter(text, "sudoku_technique_invocations_total", invocations);
+		counter(text, "sudoku_technique_fired_total", fired);
+		counter(text, "sudoku_technique_eliminations_total", eliminations);
+
+		text.append("# TYPE sudoku_technique_duration_seconds histogram\n");
+		for (Technique technique : TECHNIQUES) {
+			int t = technique.ordinal();
+			int last = -1;
+			for (int b = 0; b < BUCKETS; b++) {
+				if (histogram.get(t * BUCKETS + b) != 0)
+					last = b;
+			}
+			long cumulative = 0;
+			for (int b = 0; b <= last; b++) {
+				cumulative += histogram.get(t * BUCKETS + b);
+				text.append("sudoku_technique_duration_seconds_bucket{technique=\"").append(technique.getMethod())
+						.append("\",le=\"").append(upperBound(b) / 1e9).append("\"} ").append(cumulative).append('\n');
+			}
+			text.append("sudoku_technique_duration_seconds_bucket{technique=\"").append(technique.getMethod())
+					.append("\",le=\"+Inf\"} ").append(invocations.get(t)).append('\n')
+					.append("sudoku_technique_duration_seconds_sum{technique=\"").append(technique.getMethod())
+					.append("\"} ").append(nanos.get(t) / 1e9).append('\n')
+					.append("sudoku_technique_duration_seconds_count{technique=\"").append(technique.getMethod())
+					.append("\"} ").append(invocations.get(t)).append('\n');
+		}
+		return text.toString();
+	}
+
+	private static void counter(StringBuilder text, String name, AtomicLongArray values) {
+		text.append("# TYPE ").append(name).append(" counter\n");
+		for (Technique technique : TECHNIQUES) {
+			text.append(name).append("{technique=\"").append(technique.getMethod()).append("\"} ")
+					.append(values.get(technique.ordinal())).append('\n');
+		}
+	}
+
+	/**
+	 * @return the upper bound of the bucket in nanoseconds
+	 */
+	private static long upperBound(int bucket) {
+		return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+	}
+}
@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+/**
+ * Strong links of a board: for every house and number, the two points where
+ * the number can be when there are only two of them left. The links of a
+ * house are rebuilt only when its possibilities change, so the graph follows
+ * the board without being rebuilt on every pass. Weak links are implied by
+ * the peers of BoardIndex and are not stored.
+ */
+public class LinkGraph {
+
+	private final BoardIndex index;
+	private final int size;
+	/*
+		(house * size + number - 1) * 2 holds the two points of the link,
+		-1 when the number has no link in the house
+	 */
+	private final int[] links;
+
+	/**
+	 * @param index index of the boards linked
+	 */
+	public LinkGraph(BoardIndex index) {
+		this.index = index;
+		this.size = index.getSize();
+		this.links = new int[size * 3 * size * 2];
+		Arrays.fill(links, -1);
+	}
+
+	/**
+	 * Rebuilds the links of a house from the current possibilities
+	 * @param house house to rebuild, rows first, then columns and then quadrants
+	 * @param points points of the board
+	 */
+	public void refresh(int house, Point[] points) {
+		int[] cells = index.getHouses()[house];
+		long once = 0;
+		long twice = 0;
+		long more = 0;
+		for (int cell : cells) {
+			long mask = points[cell].getMask();
+			more |= twice & mask;
+			twice |= once & mask;
+			once |= mask;
+		}
+
+		int base = house * size * 2;
+		Arrays.fill(links, base, base + size * 2, -1);
+		long pairs = twice & ~more;
+		if (pairs == 0)
+			return;
+		for (int cell : cells) {
+			for (long numbers = points[cell].getMask() & pairs; numbers != 0; numbers &= numbers - 1) {
+				int link = base + Long.numberOfTrailingZeros(numbers) * 2;
+				links[links[link] == -1 ? link : link + 1] = cell;
+			}
+		}
+	}
+
+	/**
+	 * @param house house of the link
+	 * @param number number of the link
+	 * @param cell one of the points of the link
+	 * @return the other point of the link, -1 if the point has no link for the number in the house
+	 */
+	public int getPartner(int house, int number, int cell) {
+		int link = (house * size + number - 1) * 2;
+		if (links[link] == cell)
+			return links[link + 1];
+		if (links[link + 1] == cell)
+			return links[link];
+		return -1;
+	}
+}
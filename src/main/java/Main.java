@@ -72,17 +72,27 @@ public class Main {
             {1, null, null, 7, null, 3, 5, 4, null},
     };
 
+    /*
+        Known solution of the sudoku, when set every discarded possibility is checked against it
+     */
     public static Integer[][] solution = null;
 
     public static void main(String... args) {
 
         Integer[][] sudoku = sudoku3;
 
-        SudokuBoard sudokuBoard = new SudokuBoard(sudoku);
+        SolveTrace trace = solution == null ? null : new SolveTrace(1 << 16);
+        SudokuBoard sudokuBoard = new SudokuBoard(sudoku, SolverMetrics.NONE, trace);
         sudokuBoard.printBoard();
         sudokuBoard.solveSudoku();
         sudokuBoard.printBoard();
 
+        if (trace != null) {
+            int wrong = trace.verify(solution);
+            if (wrong >= 0)
+                System.out.println(trace.describe(wrong, sudoku.length) + " does not work");
+        }
+
 //        for (int i = 0; i < 9; i++) {
 //            for (int j = 0; j < 9; j++) {
 //                Point a = sudokuBoard.getPossibilities(new Point(i,j, 3));
@@ -1,31 +1,71 @@
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class Point {
 
+	/**
+	 * Biggest amount of numbers a point can hold, one bit per number
+	 */
+	public static final int MAX_NUMBERS = Long.SIZE;
+
 	private final int row;
 	private final int col;
 	private final int quadrant;
-	private final HashSet<Integer> possibilities;
+	/*
+		Bit (number - 1) is set when the number is still a possibility
+	 */
+	private long possibilities;
 
 	public Point(int row, int col, int n) {
 		this.row = row;
 		this.col = col;
 		this.quadrant = col / n + ((row / n) % n) * n;
-		this.possibilities = (HashSet<Integer>) IntStream.rangeClosed(1, n * n)
-				.boxed()
-				.collect(Collectors.toSet());
+		this.possibilities = fullMask(n * n);
 	}
 
 	public Point(int row, int col, int n, int val) {
 		this.row = row;
 		this.col = col;
 		this.quadrant = col / n + ((row / n) % n) * n;
-		this.possibilities = new HashSet<>(1);
-		this.possibilities.add(val);
+		this.possibilities = bit(val);
+	}
+
+	/**
+	 * @param numbers amount of numbers of the board
+	 * @return a mask with the numbers from 1 to numbers set
+	 */
+	public static long fullMask(int numbers) {
+		if (numbers > MAX_NUMBERS)
+			throw new IllegalArgumentException("A point can hold at most " + MAX_NUMBERS + " numbers, got " + numbers);
+		return numbers == MAX_NUMBERS ? -1L : (1L << numbers) - 1;
+	}
+
+	/**
+	 * @param number number from 1 to MAX_NUMBERS
+	 * @return the mask that only contains the number
+	 */
+	public static long bit(int number) {
+		return 1L << (number - 1);
+	}
+
+	/**
+	 * @param mask possibilities mask
+	 * @return the lowest number set in the mask, 0 if the mask is empty
+	 */
+	public static int lowestNumber(long mask) {
+		return mask == 0 ? 0 : Long.numberOfTrailingZeros(mask) + 1;
+	}
+
+	/**
+	 * @param mask possibilities mask
+	 * @return the numbers set in the mask, sorted
+	 */
+	public static int[] toNumbers(long mask) {
+		int[] numbers = new int[Long.bitCount(mask)];
+		for (int i = 0; mask != 0; i++, mask &= mask - 1)
+			numbers[i] = Long.numberOfTrailingZeros(mask) + 1;
+		return numbers;
 	}
 
 	public int getRow() {
@@ -41,107 +81,86 @@ public class Point {
 	}
 
 	/**
-	 * @return possibilities as an Array
+	 * Builds a new set on every call, prefer getMask() on hot paths
+	 * @return possibilities as a HashSet
 	 */
 	public HashSet<Integer> getPossibilities() {
+		HashSet<Integer> set = new HashSet<>(getCurrentPossibilities() * 2);
+		for (int number : toNumbers(possibilities))
+			set.add(number);
+		return set;
+	}
+
+	/**
+	 * @return possibilities as a mask, bit (number - 1) for each number
+	 */
+	public long getMask() {
 		return possibilities;
 	}
 
-	public Integer getUniquePossibility() {
-		if (possibilities.size() > 1)
-			throw new IllegalStateException("The HashSet contains more than one possibility");
-		return (Integer) possibilities.toArray()[0];
+	public int getUniquePossibility() {
+		if (!uniquePossibility())
+			throw new IllegalStateException("The point does not contain exactly one possibility");
+		return lowestNumber(possibilities);
 	}
 
 	/**
 	 * Serves to verify if this point has only one
 	 * possibility
-	 * @return true if there's only one element in the
-	 * hashset possibilities, false otherwise
+	 * @return true if there's only one possibility, false otherwise
 	 */
 	public boolean uniquePossibility() {
-		return this.possibilities.size() == 1;
+		return possibilities != 0 && (possibilities & (possibilities - 1)) == 0;
 	}
 
 	/**
 	 * @return the number of possibilities for this point
 	 */
 	public int getCurrentPossibilities() {
-		return this.possibilities.size();
-	}
-
-	/**
-	 * @return the number of possibilities for this point
-	 */
-	public boolean isXYWingCandidate(@NotNull Point b) {
-		if (this.equals(b))
-			return false;
-		if (b.getPossibilities().size() != 2)
-			return false;
-		if (!this.interferes(b))
-			return false;
-		for (Integer c : b.getPossibilities()) {
-			if (this.containsPossibility(c))
-				return true;
-		}
-
-		return false;
+		return Long.bitCount(possibilities);
 	}
 
 	/**
 	 *
 	 * @param number Number to verify existence
-	 * @return true if the number exists in the hashset,
+	 * @return true if the number is a possibility,
 	 * false otherwise
 	 */
-	public boolean containsPossibility(Integer number) {
-		return this.possibilities.contains(number);
-	}
-
-	public boolean containsOnePossibilityInTwo(int[] a) {
-		if (a.length != 2)
-			throw new IllegalArgumentException("Expected 2 values, got " + a.length);
-		return this.possibilities.contains(a[0]) ^ this.possibilities.contains(a[1]);
+	public boolean containsPossibility(int number) {
+		return (this.possibilities & bit(number)) != 0;
 	}
 
 	/**
-	 * @param possibilities Numbers to verify existence
-	 * @return true if hashset is a subset of possibilities,
-	 * false otherwise
+	 * Removes the value from the possibilities
+	 * @param value number to remove
+	 * @return true if the value is removed, false otherwise
 	 */
-	public boolean containsOnlyThisPossibilities(Integer... possibilities) {
-		int count = 0;
-		for (Integer num: possibilities) {
-			if (!this.possibilities.contains(num))
-				++count;
-		}
-		return count == possibilities.length - this.possibilities.size();
-	}
-
-	public int findCommon(Point point) {
-		return possibilities.stream().filter(point::containsPossibility).findFirst().orElse(0);
+	public boolean discardPossibilities(int value) {
+		return discardMask(bit(value));
 	}
 
 	/**
-	 * Removes the value from the hashset
-	 * @param value number to remove
-	 * @return true if the value is removed from the HashSet, false otherwise
+	 * Removes the values from the possibilities
+	 * @param values numbers to remove
+	 * @return true if any values is removed, false otherwise
 	 */
-	public boolean discardPossibilities(Integer value) {
-		return this.possibilities.remove(value);
+	public boolean discardPossibilities(int... values) {
+		long mask = 0;
+		for (int value: values)
+			mask |= bit(value);
+		return discardMask(mask);
 	}
 
 	/**
-	 * Removes the values from the hashset
-	 * @param values numbers to remove
-	 * @return true if any values is removed from the HashSet, false otherwise
+	 * Removes every number set in the mask from the possibilities
+	 * @param mask numbers to remove
+	 * @return true if any values is removed, false otherwise
 	 */
-	public boolean discardPossibilities(Integer... values) {
-		int size = possibilities.size();
-		for (Integer value: values) {
-			this.possibilities.remove(value);
-		}
-		return possibilities.size() < size;
+	public boolean discardMask(long mask) {
+		if ((possibilities & mask) == 0)
+			return false;
+		possibilities &= ~mask;
+		return true;
 	}
 
 	/**
@@ -150,27 +169,36 @@ public class Point {
 	 * @param value number to remove
 	 * @return true if changes were made, false if the value was already set as unique
 	 */
-	public boolean setUniquePossibility(Integer value) {
+	public boolean setUniquePossibility(int value) {
 		if (uniquePossibility())
 			return false;
 		if (!this.containsPossibility(value))
 			return false;
-		this.possibilities.clear();
-		this.possibilities.add(value);
+		this.possibilities = bit(value);
 		return true;
 	}
 
+	/**
+	 * Replaces every possibility
+	 * @param mask new possibilities, one bit per number
+	 */
+	public void setMask(long mask) {
+		this.possibilities = mask;
+	}
+
 	/**
 	 * Removes all the other values and sets the values
 	 * as the uniques possibility.
 	 * @param possibilities number to remove
 	 * @return true if changes were made, false otherwise
 	 */
-	public boolean setPossibilities(Integer... possibilities) {
-		if (Arrays.equals(Arrays.stream(possibilities).sorted().toArray(), this.getPossibilities().toArray()))
+	public boolean setPossibilities(int... possibilities) {
+		long mask = 0;
+		for (int possibility: possibilities)
+			mask |= bit(possibility);
+		if (mask == this.possibilities)
 			return false;
-		this.possibilities.clear();
-		this.possibilities.addAll(List.of(possibilities));
+		this.possibilities = mask;
 		return true;
 	}
 
@@ -183,20 +211,11 @@ public class Point {
 
 	@Override
 	public int hashCode() {
-		return row << 16 + col;
+		return (row << 16) | col;
 	}
 
 	@Override
 	public String toString() {
-		return "Point(" + row + ", " + col + "):\t" + Arrays.toString(getPossibilities().toArray());
-	}
-
-	/**
-	 * Serves to know if a point interferes with this point
-	 * @param b Point to compare
-	 * @return true if the point is at the same row, column or quadrant
-	 */
-	public boolean interferes(Point b) {
-		return !this.equals(b) && (b.col == col || b.row == row || b.quadrant == quadrant);
+		return "Point(" + row + ", " + col + "):\t" + Arrays.toString(toNumbers(possibilities));
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates puzzles with a unique solution. A random valid grid is built by
+ * filling the diagonal quadrants, which don't see each other, with random
+ * numbers and searching the rest, and is then shuffled by the symmetries of
+ * sudoku. Its clues are removed in random order, and a clue is only removed
+ * when the grid without it has no solution with another number in its place,
+ * which takes a single search that fails early instead of counting solutions.
+ * The possibilities of the cells are kept from one removal to the next, only
+ * the cell being tried changes. The puzzles of a batch are generated in
+ * parallel, each one with a SplittableRandom split from the seed in order, so
+ * the same seed always gives the same puzzles whatever the threads.
+ */
+public class PuzzleGenerator {
+
+	/*
+		Most guesses of the search checking a removal, past it the clue is kept
+	 */
+	private static final long NODE_LIMIT = 1 << 14;
+	/*
+		Grids tried for a puzzle before giving up on the difficulty band
+	 */
+	private static final int MAX_ATTEMPTS = 64;
+
+	private final BoardIndex index;
+	private final int size;
+	private final ForkJoinPool pool;
+	/*
+		Search and board of every thread
+	 */
+	private final ThreadLocal<SudokuSearch> searches;
+	private final ThreadLocal<SudokuBoard> boards;
+
+	/**
+	 * @param size size of the puzzles
+	 */
+	public PuzzleGenerator(int size) throws IllegalArgumentException {
+		this(size, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param size size of the puzzles
+	 * @param pool pool generating the puzzles of a batch
+	 */
+	public PuzzleGenerator(int size, ForkJoinPool pool) throws IllegalArgumentException {
+		int n = (int) Math.sqrt(size);
+		if (n * n != size || size == 0)
+			throw new IllegalArgumentException("The matrix must be square");
+		if (size > Point.MAX_NUMBERS)
+			throw new IllegalArgumentException("The matrix can not be bigger than " + Point.MAX_NUMBERS);
+		this.index = BoardIndex.of(n);
+		this.size = size;
+		this.pool = pool;
+		this.searches = ThreadLocal.withInitial(() -> new SudokuSearch(index, NODE_LIMIT));
+		this.boards = ThreadLocal.withInitial(() -> new SudokuBoard(new Integer[size][size]));
+	}
+
+	/**
+	 * @param seed seed of the batch
+	 * @param count amount of puzzles
+	 * @param clues clues to stop removing at, 0 to remove every clue possible
+	 * @return the puzzles, in the same order for the same seed
+	 */
+	public List<Integer[][]> generate(long seed, int count, int clues) {
+		return generate(seed, count, clues, 0, Double.MAX_VALUE);
+	}
+
+	/**
+	 * @param seed seed of the batch
+	 * @param count amount of puzzles
+	 * @param clues clues to stop removing at, 0 to remove every clue possible
+	 * @param minScore lowest Grade score accepted
+	 * @param maxScore highest Grade score accepted
+	 * @return the puzzles, in the same order for the same seed. Fewer than count
+	 * when a band is so narrow that some puzzles were not found in it
+	 */
+	public List<Integer[][]> generate(long seed, int count, int clues, double minScore, double maxScore) {
+		if (count < 0)
+			throw new IllegalArgumentException("Count can not be negative, got " + count);
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] randoms = new SplittableRandom[count];
+		for (int i = 0; i < count; i++)
+			randoms[i] = root.split();
+		return pool.submit(() -> IntStream.range(0, count).parallel()
+				.mapToObj(i -> generate(randoms[i], clues, minScore, maxScore))
+				.filter(Objects::nonNull)
+				.collect(Collectors.toCollection(ArrayList::new))).join();
+	}
+
+	/**
+	 * @param random source of the puzzle
+	 * @param clues clues to stop removing at, 0 to remove every clue possible
+	 * @return a puzzle with a unique solution
+	 */
+	public Integer[][] generate(SplittableRandom random, int clues) {
+		return generate(random, clues, 0, Double.MAX_VALUE);
+	}
+
+	/**
+	 * @param random source of the puzzle
+	 * @param clues clues to stop removing at, 0 to remove every clue possible
+	 * @param minScore lowest Grade score accepted
+	 * @param maxScore highest Grade score accepted
+	 * @return a puzzle with a unique solution whose score is in the band,
+	 * null if none was found in MAX_ATTEMPTS grids
+	 */
+	public Integer[][] generate(SplittableRandom random, int clues, double minScore, double maxScore) {
+		if (clues < 0 || clues > size * size)
+			throw new IllegalArgumentException("Invalid amount of clues " + clues);
+		boolean graded = minScore > 0 || maxScore < Double.MAX_VALUE;
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			int[] grid = grid(random);
+			Integer[][] puzzle = toBoard(removeClues(grid, clues, random));
+			if (!graded)
+				return puzzle;
+			double score = grade(puzzle);
+			if (score >= minScore && score <= maxScore)
+				return puzzle;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of every cell of a random valid grid
+	 */
+	private int[] grid(SplittableRandom random) {
+		int n = index.getN();
+		long full = Point.fullMask(size);
+		long[] masks = new long[size * size];
+		Arrays.fill(masks, full);
+		int[] numbers = shuffled(size, random);
+		int[] solved = null;
+		for (int attempt = 0; solved == null && attempt < MAX_ATTEMPTS; attempt++) {
+			for (int q = 0; q < n; q++) {
+				int[] quadrant = index.getQuadrant(q * n + q);
+				for (int i = 0; i < size; i++)
+					masks[quadrant[i]] = Point.bit(numbers[i] + 1);
+				shuffle(numbers, random);
+			}
+			solved = searches.get().solve(masks);
+		}
+		if (solved == null)
+			throw new IllegalStateException("No grid completes the diagonal quadrants");
+
+		int[] labels = shuffled(size, random);
+		int[] rows = order(random);
+		int[] cols = order(random);
+		boolean transpose = random.nextBoolean();
+		int[] grid = new int[size * size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int cell = transpose ? index.cell(cols[j], rows[i]) : index.cell(rows[i], cols[j]);
+				grid[index.cell(i, j)] = labels[solved[cell] - 1] + 1;
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * @return a random order of the rows that keeps every row in its band
+	 */
+	private int[] order(SplittableRandom random) {
+		int n = index.getN();
+		int[] bands = shuffled(n, random);
+		int[] order = new int[size];
+		for (int b = 0; b < n; b++) {
+			int[] inside = shuffled(n, random);
+			for (int i = 0; i < n; i++)
+				order[b * n + i] = bands[b] * n + inside[i];
+		}
+		return order;
+	}
+
+	/**
+	 * @param grid solved grid, left untouched
+	 * @return the possibilities of every cell of the puzzle, a single one for the clues
+	 */
+	private long[] removeClues(int[] grid, int clues, SplittableRandom random) {
+		SudokuSearch search = searches.get();
+		long full = Point.fullMask(size);
+		long[] masks = new long[grid.length];
+		for (int cell = 0; cell < grid.length; cell++)
+			masks[cell] = Point.bit(grid[cell]);
+
+		int left = grid.length;
+		for (int cell : shuffled(grid.length, random)) {
+			if (left == clues)
+				break;
+			long number = masks[cell];
+			masks[cell] = full & ~number;
+			if (search.solve(masks) == null && !search.isLimitReached()) {
+				masks[cell] = full;
+				left--;
+			} else
+				masks[cell] = number;
+		}
+		return masks;
+	}
+
+	private Integer[][] toBoard(long[] masks) {
+		Integer[][] board = new Integer[size][size];
+		for (int cell = 0; cell < masks.length; cell++) {
+			if (Long.bitCount(masks[cell]) == 1)
+				board[index.rowOf(cell)][index.colOf(cell)] = Point.lowestNumber(masks[cell]);
+		}
+		return board;
+	}
+
+	private double grade(Integer[][] puzzle) {
+		Integer[][] copy = new Integer[size][];
+		for (int i = 0; i < size; i++)
+			copy[i] = puzzle[i].clone();
+		SudokuBoard board = boards.get();
+		board.reset(copy);
+		return board.grade(0, 0).getScore();
+	}
+
+	private static int[] shuffled(int length, SplittableRandom random) {
+		int[] values = new int[length];
+		for (int i = 0; i < length; i++)
+			values[i] = i;
+		shuffle(values, random);
+		return values;
+	}
+
+	private static void shuffle(int[] values, SplittableRandom random) {
+		for (int i = values.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = values[i];
+			values[i] = values[j];
+			values[j] = swap;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads puzzles written one per line, 81 characters for a 9x9 board,
+ * 256 for 16x16 and 625 for 25x25. Numbers are written as 1-9 and then
+ * A-Z (case insensitive) from 10 on, '.' and '0' are empty cells.
+ * The file is memory-mapped by regions and every line is parsed straight
+ * from the mapped bytes, so the heap used does not depend on the file size.
+ */
+public class PuzzleReader implements Iterator<Integer[][]>, AutoCloseable {
+
+	private static final long REGION = 1 << 26;
+
+	private final FileChannel channel;
+	private final long fileSize;
+	private final long regionSize;
+	private MappedByteBuffer buffer;
+	private long regionStart = 0;
+	private long line = 0;
+	private Integer[][] next;
+
+	public PuzzleReader(Path path) throws IOException {
+		this(path, REGION);
+	}
+
+	/**
+	 * @param path file to read
+	 * @param regionSize bytes mapped at once, must be bigger than the longest line
+	 */
+	PuzzleReader(Path path, long regionSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.fileSize = channel.size();
+		this.regionSize = regionSize;
+		map(0);
+	}
+
+	/**
+	 * @param symbol character of the line format
+	 * @return the number of the symbol, 0 for an empty cell and -1 if it's not valid
+	 */
+	public static int toNumber(int symbol) {
+		if (symbol == '.' || symbol == '0')
+			return 0;
+		if (symbol >= '1' && symbol <= '9')
+			return symbol - '0';
+		if (symbol >= 'A' && symbol <= 'Z')
+			return symbol - 'A' + 10;
+		if (symbol >= 'a' && symbol <= 'z')
+			return symbol - 'a' + 10;
+		return -1;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null)
+			next = readLine();
+		return next != null;
+	}
+
+	@Override
+	public Integer[][] next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		Integer[][] board = next;
+		next = null;
+		return board;
+	}
+
+	/**
+	 * @return number of lines read so far
+	 */
+	public long getLine() {
+		return line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void map(long position) {
+		try {
+			regionStart = position;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, fileSize - position));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return the next puzzle, null at the end of the file
+	 */
+	private Integer[][] readLine() {
+		while (true) {
+			int start = buffer.position();
+			int end = start;
+			while (end < buffer.limit() && buffer.get(end) != '\n')
+				end++;
+
+			if (end == buffer.limit() && regionStart + end < fileSize) {
+				if (start == 0)
+					throw new IllegalArgumentException("Line " + (line + 1) + " is longer than " + regionSize + " bytes");
+				map(regionStart + start);
+				continue;
+			}
+
+			int length = end - start;
+			if (length > 0 && buffer.get(end - 1) == '\r')
+				length--;
+			buffer.position(Math.min(end + 1, buffer.limit()));
+			if (length == 0) {
+				if (end == buffer.limit())
+					return null;
+				line++;
+				continue;
+			}
+			line++;
+			return parse(start, length);
+		}
+	}
+
+	private Integer[][] parse(int start, int length) {
+		int size = (int) Math.sqrt(length);
+		int n = (int) Math.sqrt(size);
+		if (size * size != length || n * n != size)
+			throw new IllegalArgumentException("Line " + line + " has " + length + " cells, which is not a square board");
+
+		Integer[][] board = new Integer[size][size];
+		for (int cell = 0; cell < length; cell++) {
+			int number = toNumber(buffer.get(start + cell));
+			if (number < 0 || number > size)
+				throw new IllegalArgumentException("Invalid cell '" + (char) buffer.get(start + cell) + "' at line " + line);
+			if (number > 0)
+				board[cell / size][cell % size] = number;
+		}
+		return board;
+	}
+}
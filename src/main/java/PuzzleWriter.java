@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes boards one per line in the same format PuzzleReader reads.
+ * Lines are encoded into a reused direct buffer that is flushed to the
+ * channel when full.
+ */
+public class PuzzleWriter implements AutoCloseable {
+
+	/**
+	 * Biggest number with a symbol in the line format, Z
+	 */
+	public static final int MAX_NUMBER = 35;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	public PuzzleWriter(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * @param number number from 0 to 35, 0 for an empty cell
+	 * @return the character used for the number in the line format
+	 */
+	public static byte toSymbol(int number) throws IllegalArgumentException {
+		if (number < 0 || number > MAX_NUMBER)
+			throw new IllegalArgumentException("No symbol for " + number);
+		if (number == 0)
+			return '.';
+		if (number <= 9)
+			return (byte) ('0' + number);
+		return (byte) ('A' + number - 10);
+	}
+
+	/**
+	 * Writes the board as a line, null cells are written as empty
+	 * @param board board to write
+	 */
+	public void write(Integer[][] board) throws IOException {
+		if (buffer.remaining() < board.length * board.length + 1)
+			flush();
+		for (Integer[] row : board) {
+			for (Integer cell : row)
+				buffer.put(toSymbol(cell == null ? 0 : cell));
+		}
+		buffer.put((byte) '\n');
+	}
+
+	/**
+	 * Writes a line with every cell empty, used for puzzles without solution
+	 * @param size size of the board
+	 */
+	public void writeEmpty(int size) throws IOException {
+		if (buffer.remaining() < size * size + 1)
+			flush();
+		for (int cell = 0; cell < size * size; cell++)
+			buffer.put((byte) '.');
+		buffer.put((byte) '\n');
+	}
+
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of solved puzzles keyed by the hash of their CanonicalForm,
+ * so a puzzle seen before, even relabelled, reordered or transposed, is
+ * answered by mapping the cached solution back through the inverse transform
+ * instead of solving it again. The least recently used entry is evicted when
+ * the cache is full. Thread safe.
+ */
+public class SolutionCache {
+
+	private final int capacity;
+	private final LinkedHashMap<Long, CachedSolution> entries;
+	/*
+		CanonicalForm of every size for the current thread, indexed by size
+	 */
+	private final ThreadLocal<CanonicalForm[]> forms =
+			ThreadLocal.withInitial(() -> new CanonicalForm[Point.MAX_NUMBERS + 1]);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param capacity most solutions kept
+	 */
+	public SolutionCache(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, CachedSolution> eldest) {
+				return size() > SolutionCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * @param puzzle board to solve, filled in place
+	 * @param solver solves the puzzle when it's not cached, returns null if it has no solution
+	 * @return the solved board, null if the sudoku has no solution
+	 */
+	public Integer[][] solve(Integer[][] puzzle, Function<Integer[][], Integer[][]> solver) {
+		CanonicalForm form = form(puzzle.length);
+		int[] canonical = form.canonicalize(puzzle);
+		long hash = hash(canonical);
+
+		CachedSolution entry;
+		synchronized (entries) {
+			entry = entries.get(hash);
+		}
+		if (entry != null && entry.matches(canonical)) {
+			hits.increment();
+			form.fromCanonical(entry.solution, puzzle);
+			return puzzle;
+		}
+
+		misses.increment();
+		Integer[][] solution = solver.apply(puzzle);
+		if (solution == null)
+			return null;
+		byte[] cells = new byte[canonical.length];
+		for (int i = 0; i < cells.length; i++)
+			cells[i] = (byte) canonical[i];
+		byte[] solved = new byte[canonical.length];
+		form.toCanonical(solution, solved);
+		synchronized (entries) {
+			entries.put(hash, new CachedSolution(cells, solved));
+		}
+		return solution;
+	}
+
+	private CanonicalForm form(int size) {
+		CanonicalForm[] cache = forms.get();
+		if (cache[size] == null)
+			cache[size] = new CanonicalForm(size);
+		return cache[size];
+	}
+
+	private static long hash(int[] cells) {
+		long hash = 0xcbf29ce484222325L;
+		for (int cell : cells)
+			hash = (hash ^ cell) * 0x100000001b3L;
+		return hash;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return amount of solutions kept
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Canonical puzzle and its canonical solution, one byte per cell. The
+	 * puzzle is kept to tell apart two puzzles with the same hash
+	 */
+	private static class CachedSolution {
+		private final byte[] puzzle;
+		private final byte[] solution;
+
+		private CachedSolution(byte[] puzzle, byte[] solution) {
+			this.puzzle = puzzle;
+			this.solution = solution;
+		}
+
+		private boolean matches(int[] canonical) {
+			if (canonical.length != puzzle.length)
+				return false;
+			for (int i = 0; i < puzzle.length; i++) {
+				if (puzzle[i] != canonical[i])
+					return false;
+			}
+			return true;
+		}
+	}
+}
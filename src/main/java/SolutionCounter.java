@@ -0,0 +1,200 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the solutions of a board up to a limit on a fork-join pool. The
+ * search tree is split at the cell with fewer possibilities while the pool
+ * has idle workers, every subtree is searched by a SudokuSearch of its
+ * worker and they all share one counter, so every task stops as soon as the
+ * limit is reached. A limit of 2 tells whether a puzzle has a unique solution.
+ * A solve is split the same way, stopping every task once one of them finds
+ * a solution. An instance counts from any thread but solves from one at a time.
+ */
+public class SolutionCounter {
+
+	/*
+		Deepest level of the tree split into tasks
+	 */
+	private static final int MAX_SPLIT = 8;
+	/*
+		Tasks a worker keeps queued before it stops splitting
+	 */
+	private static final int SURPLUS = 2;
+
+	private final BoardIndex index;
+	private final ForkJoinPool pool;
+	/*
+		Search of every worker
+	 */
+	private final ThreadLocal<SudokuSearch> searches;
+	/*
+		Whether the last solve gave up at the node limit
+	 */
+	private boolean limitReached;
+
+	/**
+	 * @param index index of the boards to count
+	 */
+	public SolutionCounter(BoardIndex index) {
+		this(index, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param index index of the boards to count
+	 * @param pool pool running the subtrees
+	 */
+	public SolutionCounter(BoardIndex index, ForkJoinPool pool) {
+		this.index = index;
+		this.pool = pool;
+		this.searches = ThreadLocal.withInitial(() -> new SudokuSearch(index));
+	}
+
+	/**
+	 * @param masks possibilities of every cell, one bit per number, left untouched
+	 * @param limit amount of solutions to stop at
+	 * @return the amount of solutions, at most limit
+	 */
+	public long count(long[] masks, long limit) throws IllegalArgumentException {
+		if (limit < 1)
+			throw new IllegalArgumentException("Limit must be positive, got " + limit);
+		if (masks.length != index.getCells())
+			throw new IllegalArgumentException("Expected " + index.getCells() + " cells, got " + masks.length);
+		AtomicLong solutions = new AtomicLong();
+		pool.invoke(new Subtree(masks.clone(), 0, limit, solutions, null));
+		return Math.min(solutions.get(), limit);
+	}
+
+	/**
+	 * @param masks possibilities of every cell, one bit per number, left untouched
+	 * @param nodeLimit guesses shared by every subtree before giving up
+	 * @return the number of every cell, null if there's no solution or the
+	 * node limit was reached. With several solutions, any of them
+	 */
+	public int[] solve(long[] masks, long nodeLimit) throws IllegalArgumentException {
+		if (nodeLimit < 1)
+			throw new IllegalArgumentException("Node limit must be positive, got " + nodeLimit);
+		if (masks.length != index.getCells())
+			throw new IllegalArgumentException("Expected " + index.getCells() + " cells, got " + masks.length);
+		Found found = new Found(nodeLimit);
+		pool.invoke(new Subtree(masks.clone(), 0, 1, new AtomicLong(), found));
+		limitReached = found.solution == null && found.limitReached;
+		return found.solution;
+	}
+
+	/**
+	 * @return true if the last solve gave up at the node limit, then it
+	 * returned null without knowing if there's a solution
+	 */
+	public boolean isLimitReached() {
+		return limitReached;
+	}
+
+	/**
+	 * State shared by the subtrees of a solve
+	 */
+	private static class Found {
+		/*
+			Guesses not taken by any subtree yet
+		 */
+		private final AtomicLong nodesLeft;
+		private volatile int[] solution;
+		private volatile boolean limitReached;
+
+		private Found(long nodeLimit) {
+			this.nodesLeft = new AtomicLong(nodeLimit);
+		}
+	}
+
+	/**
+	 * Possibilities of a subtree, the cells guessed on the way have a single one
+	 */
+	private class Subtree extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] masks;
+		private final int depth;
+		private final long limit;
+		private final AtomicLong solutions;
+		/*
+			null unless solving
+		 */
+		private final Found found;
+
+		private Subtree(long[] masks, int depth, long limit, AtomicLong solutions, Found found) {
+			this.masks = masks;
+			this.depth = depth;
+			this.limit = limit;
+			this.solutions = solutions;
+			this.found = found;
+		}
+
+		@Override
+		protected void compute() {
+			if (solutions.get() >= limit)
+				return;
+			int cell = depth < MAX_SPLIT && getSurplusQueuedTaskCount() < SURPLUS ? branchCell() : -1;
+			if (cell == -1) {
+				search();
+				return;
+			}
+			if (cell == -2)
+				return;
+
+			long mask = masks[cell] & ~solvedPeers(cell);
+			Subtree[] subtrees = new Subtree[Long.bitCount(mask)];
+			for (int i = 0; mask != 0; mask &= mask - 1) {
+				long[] branch = masks.clone();
+				branch[cell] = mask & -mask;
+				subtrees[i++] = new Subtree(branch, depth + 1, limit, solutions, found);
+			}
+			invokeAll(subtrees);
+		}
+
+		/**
+		 * Searches the subtree on the search of the worker
+		 */
+		private void search() {
+			SudokuSearch search = searches.get();
+			if (found == null) {
+				search.count(masks, limit, solutions);
+				return;
+			}
+			int[] solution = search.solve(masks, solutions, found.nodesLeft);
+			if (solution != null)
+				found.solution = solution.clone();
+			else if (search.isLimitReached())
+				found.limitReached = true;
+		}
+
+		/**
+		 * @return the unsolved cell with fewer possibilities left by its solved
+		 * peers, -1 if every cell is solved and -2 if a cell has none left
+		 */
+		private int branchCell() {
+			int best = -1;
+			int bestCount = Integer.MAX_VALUE;
+			for (int cell = 0; cell < masks.length; cell++) {
+				if (Long.bitCount(masks[cell]) == 1)
+					continue;
+				int count = Long.bitCount(masks[cell] & ~solvedPeers(cell));
+				if (count == 0)
+					return -2;
+				if (count < bestCount) {
+					best = cell;
+					bestCount = count;
+				}
+			}
+			return best;
+		}
+
+		private long solvedPeers(int cell) {
+			long solved = 0;
+			for (int peer : index.getPeers(cell)) {
+				if (Long.bitCount(masks[peer]) == 1)
+					solved |= masks[peer];
+			}
+			return solved;
+		}
+	}
+}
@@ -0,0 +1,623 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solve server over TCP. One selector thread reads every connection and
+ * queues the requests, a fixed set of workers takes them in batches of up to
+ * maxBatch and solves them on the boards of a BoardPool, so no thread or board
+ * is created per request. When the queue is full the request is answered
+ * BUSY at once instead of waiting, which keeps the latency of the accepted
+ * ones bounded under bursts.
+ * <p>
+ * Every request is a line with an id without spaces and the puzzle in the
+ * format of PuzzleReader, and every answer a line starting with the same id:
+ * <pre>
+ * id OK solution
+ * id NONE         the puzzle has no solution
+ * id BUSY         the queue was full, the puzzle was not solved
+ * id ERROR reason the line could not be read, or the puzzle took too many guesses
+ * </pre>
+ * Text requests are limited to boards of size 35, the last symbol of
+ * PuzzleReader, bigger ones must be sent as binary frames.
+ * A request can also be a binary frame, a 0 byte, the size of the board in a
+ * byte, an int id and the board in the format of BoardCodec. It's answered
+ * with the same header and a status byte, 0 OK, 1 NONE, 2 BUSY or 3 ERROR,
+ * followed by the solution in the format of BoardCodec when it's OK.
+ * Answers of the same connection may come in a different order than the requests.
+ * A connection is not read while more than MAX_OUTPUT bytes of its answers
+ * wait to be written, so a client that doesn't read can't fill the memory.
+ */
+public class SolveServer implements AutoCloseable {
+
+	private static final int DEFAULT_QUEUE = 1024;
+	private static final int DEFAULT_BATCH = 32;
+	/*
+		Guesses a puzzle may take with the default constructor before it's answered ERROR
+	 */
+	private static final long DEFAULT_NODES = 1 << 20;
+	/*
+		Bytes of answers not written yet after which a connection is not read
+	 */
+	private static final int MAX_OUTPUT = 1 << 20;
+	/*
+		Millis before accepting again after accept failed, usually for lack of file descriptors
+	 */
+	private static final long ACCEPT_RETRY = 100;
+	/*
+		Bytes read at once from a connection, also the longest line accepted
+	 */
+	private static final int READ_BUFFER = 1 << 16;
+	/*
+		First byte of a binary request, and bytes before its board
+	 */
+	private static final byte FRAME = 0;
+	private static final int FRAME_HEADER = 6;
+	private static final int OK = 0;
+	private static final int NONE = 1;
+	private static final int BUSY = 2;
+	private static final int ERROR = 3;
+	private static final String[] STATUS = {"OK", "NONE", "BUSY", "ERROR"};
+
+	private final ServerSocketChannel server;
+	private final Selector selector;
+	private final SelectionKey serverKey;
+	private final BlockingQueue<Request> queue;
+	private final int maxBatch;
+	private final BoardPool boards;
+	/*
+		Connections with answers to write, added by the workers
+	 */
+	private final ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<>();
+	/*
+		Codec of every size used by a binary request, indexed by size
+	 */
+	private final BoardCodec[] codecs = new BoardCodec[Point.MAX_NUMBERS + 1];
+	private final Thread selectorThread;
+	private final Thread[] workers;
+	private final LongAdder served = new LongAdder();
+	private final LongAdder shed = new LongAdder();
+	private volatile boolean running = true;
+	/*
+		Whether accepting stopped after a failure, used by the selector thread
+	 */
+	private boolean acceptPaused = false;
+
+	/**
+	 * Listens on the loopback interface with a worker per core, giving up
+	 * on a puzzle after DEFAULT_NODES guesses
+	 * @param port port to listen on, 0 for any free one
+	 */
+	public SolveServer(int port) throws IOException {
+		this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+				Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE, DEFAULT_BATCH, new BoardPool(SolverMetrics.NONE, null, DEFAULT_NODES));
+	}
+
+	/**
+	 * @param address address to listen on
+	 * @param workers amount of solver threads
+	 * @param queueLimit most requests waiting for a worker, the rest are answered BUSY
+	 * @param maxBatch most requests a worker takes from the queue at once
+	 * @param boards boards used by the workers, its node limit bounds the time of a puzzle
+	 */
+	public SolveServer(InetSocketAddress address, int workers, int queueLimit, int maxBatch, BoardPool boards) throws IOException {
+		if (workers < 1)
+			throw new IllegalArgumentException("Workers must be positive, got " + workers);
+		if (queueLimit < 1)
+			throw new IllegalArgumentException("Queue limit must be positive, got " + queueLimit);
+		if (maxBatch < 1)
+			throw new IllegalArgumentException("maxBatch must be positive, got " + maxBatch);
+		this.queue = new ArrayBlockingQueue<>(queueLimit);
+		this.maxBatch = maxBatch;
+		this.boards = boards;
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		try {
+			server.bind(address);
+			server.configureBlocking(false);
+			this.serverKey = server.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			server.close();
+			selector.close();
+			throw e;
+		}
+
+		this.selectorThread = new Thread(this::select, "solve-server");
+		this.workers = new Thread[workers];
+		for (int i = 0; i < workers; i++)
+			this.workers[i] = new Thread(this::work, "solve-worker-" + i);
+	}
+
+	/**
+	 * Starts accepting connections
+	 * @return this server
+	 */
+	public SolveServer start() {
+		for (Thread worker : workers)
+			worker.start();
+		selectorThread.start();
+		return this;
+	}
+
+	/**
+	 * @return the address listened on, with the port chosen when it was 0
+	 */
+	public InetSocketAddress getAddress() {
+		try {
+			return (InetSocketAddress) server.getLocalAddress();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return amount of requests solved
+	 */
+	public long getServed() {
+		return served.sum();
+	}
+
+	/**
+	 * @return amount of requests answered BUSY because the queue was full
+	 */
+	public long getShed() {
+		return shed.sum();
+	}
+
+	/**
+	 * Stops the threads and closes every connection, queued requests are dropped
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		for (Thread worker : workers)
+			worker.interrupt();
+		selector.wakeup();
+		try {
+			if (selectorThread.isAlive())
+				selectorThread.join();
+			for (Thread worker : workers) {
+				if (worker.isAlive())
+					worker.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		closeAll();
+	}
+
+	private void closeAll() throws IOException {
+		try {
+			for (SelectionKey key : selector.keys())
+				key.channel().close();
+		} catch (ClosedSelectorException ignored) {
+		}
+		server.close();
+		selector.close();
+	}
+
+	/**
+	 * Loop of the selector thread. A failure of a connection only closes it
+	 */
+	private void select() {
+		while (running) {
+			try {
+				selector.select(acceptPaused ? ACCEPT_RETRY : 0);
+			} catch (IOException e) {
+				// the selector can't be used anymore, stop as close would
+				running = false;
+				for (Thread worker : workers)
+					worker.interrupt();
+				return;
+			}
+			if (acceptPaused) {
+				acceptPaused = false;
+				serverKey.interestOps(SelectionKey.OP_ACCEPT);
+			}
+
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				try {
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable())
+						accept();
+					else {
+						Connection connection = (Connection) key.attachment();
+						if (key.isReadable())
+							connection.read();
+						if (key.isValid() && key.isWritable())
+							connection.flush();
+					}
+				} catch (CancelledKeyException ignored) {
+					// closed while its events were handled
+				}
+			}
+			// after the keys, so the answers given while reading them are written now
+			for (Connection connection; (connection = ready.poll()) != null; )
+				connection.flush();
+		}
+	}
+
+	private void accept() {
+		SocketChannel channel;
+		try {
+			channel = server.accept();
+		} catch (IOException e) {
+			// the connection stays pending, retrying at once would spin
+			acceptPaused = true;
+			serverKey.interestOps(0);
+			return;
+		}
+		if (channel == null)
+			return;
+		try {
+			channel.configureBlocking(false);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			key.attach(new Connection(key, channel));
+		} catch (IOException e) {
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	/**
+	 * Loop of every worker
+	 */
+	private void work() {
+		List<Request> batch = new ArrayList<>(maxBatch);
+		while (running) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, maxBatch - 1);
+			for (Request request : batch) {
+				request.connection.reply(request.solve());
+				served.increment();
+			}
+			batch.clear();
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * Puzzle waiting for a worker, the id is null for a binary request
+	 */
+	private class Request {
+		private final Connection connection;
+		private final String id;
+		private final int frame;
+		/*
+			Size of the board of a binary request, sent back even if it's invalid
+		 */
+		private final int size;
+		private final BoardCodec codec;
+		private final Integer[][] puzzle;
+
+		private Request(Connection connection, String id, Integer[][] puzzle) {
+			this.connection = connection;
+			this.id = id;
+			this.frame = 0;
+			this.size = 0;
+			this.codec = null;
+			this.puzzle = puzzle;
+		}
+
+		private Request(Connection connection, int frame, int size, BoardCodec codec, Integer[][] puzzle) {
+			this.connection = connection;
+			this.id = null;
+			this.frame = frame;
+			this.size = size;
+			this.codec = codec;
+			this.puzzle = puzzle;
+		}
+
+		/**
+		 * @return the answer
+		 */
+		private ByteBuffer solve() {
+			Integer[][] solution;
+			try {
+				solution = boards.solve(puzzle);
+			} catch (RuntimeException e) {
+				return answer(ERROR, e.getMessage(), null);
+			}
+			if (solution == null)
+				return answer(NONE, null, null);
+			return answer(OK, null, solution);
+		}
+
+		/**
+		 * @param status one of OK, NONE, BUSY or ERROR
+		 * @param reason why it's an error, only written in text answers
+		 * @param solution solution of an OK answer
+		 * @return the answer line or frame
+		 */
+		private ByteBuffer answer(int status, String reason, Integer[][] solution) {
+			if (id == null) {
+				ByteBuffer answer = ByteBuffer.allocate(FRAME_HEADER + 1 + (solution == null ? 0 : codec.getBytes()));
+				answer.put(FRAME).put((byte) size).putInt(frame).put((byte) status);
+				if (solution != null)
+					codec.encode(solution, answer);
+				return answer.flip();
+			}
+
+			String line = id + ' ' + STATUS[status] + (reason == null ? "" : " " + reason) + (solution == null ? "\n" : " ");
+			byte[] prefix = line.getBytes(StandardCharsets.US_ASCII);
+			if (solution == null)
+				return ByteBuffer.wrap(prefix);
+			ByteBuffer answer = ByteBuffer.allocate(prefix.length + solution.length * solution.length + 1);
+			answer.put(prefix);
+			for (Integer[] row : solution) {
+				for (Integer cell : row)
+					answer.put(PuzzleWriter.toSymbol(cell));
+			}
+			answer.put((byte) '\n');
+			return answer.flip();
+		}
+	}
+
+	/**
+	 * State of a client, read only by the selector thread. The answers are
+	 * queued by any thread and written by the selector thread
+	 */
+	private class Connection {
+		private final SelectionKey key;
+		private final SocketChannel channel;
+		private final ByteBuffer input = ByteBuffer.allocate(READ_BUFFER);
+		private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+		/*
+			Requests queued but not answered yet, guarded by output
+		 */
+		private int pending = 0;
+		/*
+			Bytes of the answers in output not written yet, guarded by output
+		 */
+		private int outputBytes = 0;
+		/*
+			Whether the connection is in ready, guarded by output
+		 */
+		private boolean queued = false;
+		private boolean inputClosed = false;
+		/*
+			Whether reading stopped until the answers are written, used by the selector thread
+		 */
+		private boolean paused = false;
+
+		private Connection(SelectionKey key, SocketChannel channel) {
+			this.key = key;
+			this.channel = channel;
+		}
+
+		private void read() {
+			int read;
+			try {
+				read = channel.read(input);
+			} catch (IOException e) {
+				close();
+				return;
+			}
+			if (read < 0) {
+				stopReading();
+				closeIfDone();
+				return;
+			}
+
+			int start = 0;
+			while (start < input.position() && !inputClosed) {
+				int used = input.get(start) == FRAME ? frame(start) : line(start);
+				if (used == 0)
+					break;
+				start += used;
+			}
+			if (start == 0 && !input.hasRemaining()) {
+				send(new Request(this, "-", null).answer(ERROR, "Line longer than " + READ_BUFFER + " bytes", null));
+				stopReading();
+				return;
+			}
+			input.limit(input.position()).position(Math.min(start, input.position()));
+			input.compact();
+		}
+
+		/**
+		 * Parses a request line and queues it, or answers it if it can't be solved
+		 * @return bytes of the line, 0 if it's not complete yet
+		 */
+		private int line(int start) {
+			int end = start;
+			while (end < input.position() && input.get(end) != '\n')
+				end++;
+			if (end == input.position())
+				return 0;
+			int used = end + 1 - start;
+			if (end > start && input.get(end - 1) == '\r')
+				end--;
+			if (end == start)
+				return used;
+			int space = start;
+			while (space < end && input.get(space) != ' ')
+				space++;
+			Request request = new Request(this, new String(input.array(), start, space - start, StandardCharsets.US_ASCII), null);
+			if (space == end) {
+				send(request.answer(ERROR, "Missing puzzle", null));
+				return used;
+			}
+
+			int length = end - space - 1;
+			int size = (int) Math.sqrt(length);
+			int n = (int) Math.sqrt(size);
+			if (size * size != length || n * n != size || size > Point.MAX_NUMBERS) {
+				send(request.answer(ERROR, length + " cells is not a square board", null));
+				return used;
+			}
+			if (size > PuzzleWriter.MAX_NUMBER) {
+				send(request.answer(ERROR, "Size " + size + " has no symbols, use a binary frame", null));
+				return used;
+			}
+			Integer[][] puzzle = new Integer[size][size];
+			for (int cell = 0; cell < length; cell++) {
+				byte symbol = input.get(space + 1 + cell);
+				int number = PuzzleReader.toNumber(symbol);
+				if (number < 0 || number > size) {
+					send(request.answer(ERROR, "Invalid cell '" + (char) symbol + "'", null));
+					return used;
+				}
+				if (number > 0)
+					puzzle[cell / size][cell % size] = number;
+			}
+			submit(new Request(this, request.id, puzzle));
+			return used;
+		}
+
+		/**
+		 * Parses a binary request and queues it, or answers it if it can't be solved
+		 * @return bytes of the frame, 0 if it's not complete yet
+		 */
+		private int frame(int start) {
+			if (input.position() - start < FRAME_HEADER)
+				return 0;
+			int size = input.get(start + 1) & 0xff;
+			int id = input.getInt(start + 2);
+			int n = (int) Math.sqrt(size);
+			if (n * n != size || size == 0 || size > Point.MAX_NUMBERS) {
+				// the length of the frame is unknown, nothing after it can be read
+				send(new Request(this, id, size, null, null).answer(ERROR, null, null));
+				stopReading();
+				return input.position() - start;
+			}
+			if (codecs[size] == null)
+				codecs[size] = new BoardCodec(size);
+			BoardCodec codec = codecs[size];
+			if (input.position() - start < FRAME_HEADER + codec.getBytes())
+				return 0;
+
+			Request request = new Request(this, id, size, codec, null);
+			Integer[][] puzzle;
+			try {
+				puzzle = codec.decode(input.duplicate().position(start + FRAME_HEADER));
+			} catch (IllegalArgumentException e) {
+				send(request.answer(ERROR, null, null));
+				return FRAME_HEADER + codec.getBytes();
+			}
+			submit(new Request(this, id, size, codec, puzzle));
+			return FRAME_HEADER + codec.getBytes();
+		}
+
+		private void submit(Request request) {
+			synchronized (output) {
+				pending++;
+			}
+			if (!queue.offer(request)) {
+				shed.increment();
+				reply(request.answer(BUSY, null, null));
+			}
+		}
+
+		private void stopReading() {
+			inputClosed = true;
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+		}
+
+		/**
+		 * Queues the answer of a queued request
+		 */
+		private void reply(ByteBuffer answer) {
+			synchronized (output) {
+				pending--;
+				send(answer);
+			}
+		}
+
+		/**
+		 * Queues an answer, it is written by the selector thread
+		 */
+		private void send(ByteBuffer answer) {
+			synchronized (output) {
+				output.add(answer);
+				outputBytes += answer.remaining();
+				if (queued)
+					return;
+				queued = true;
+			}
+			ready.add(this);
+		}
+
+		/**
+		 * Writes the queued answers without blocking, the rest are written
+		 * when the channel is writable again. Reading stops while more than
+		 * MAX_OUTPUT bytes are queued, until all of them are written
+		 */
+		private void flush() {
+			if (!key.isValid())
+				return;
+			synchronized (output) {
+				queued = false;
+				try {
+					while (!output.isEmpty()) {
+						ByteBuffer answer = output.peek();
+						outputBytes -= channel.write(answer);
+						if (answer.hasRemaining())
+							break;
+						output.poll();
+					}
+				} catch (IOException e) {
+					close();
+					return;
+				}
+				if (outputBytes > MAX_OUTPUT)
+					paused = true;
+				else if (output.isEmpty())
+					paused = false;
+				int ops = output.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+				if (!paused && !inputClosed)
+					ops |= SelectionKey.OP_READ;
+				key.interestOps(ops);
+			}
+			closeIfDone();
+		}
+
+		/**
+		 * Closes the connection once the client stopped sending and every answer was written
+		 */
+		private void closeIfDone() {
+			if (!inputClosed)
+				return;
+			synchronized (output) {
+				if (pending > 0 || !output.isEmpty())
+					return;
+			}
+			close();
+		}
+
+		private void close() {
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+}
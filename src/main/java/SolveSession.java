@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * A puzzle being solved by hand, one move at a time. A move sets a number
+ * or erases a candidate of a point and then only erases the numbers set from
+ * their peers, cascading to the points left with a single possibility, so
+ * every move costs the possibilities it discards. Moves are undone in reverse
+ * order from the undo log of the board, without copying or recomputing it.
+ * The candidates of a point are read in constant time, and a hint runs the
+ * techniques once instead of solving. An instance is not thread safe.
+ */
+public class SolveSession {
+
+	private final SudokuBoard board;
+	private final int size;
+	/*
+		Points given by the puzzle or set by a move
+	 */
+	private final boolean[] filled;
+	/*
+		Point and board mark of every move, in order, -1 as the point of an erase
+	 */
+	private int[] moveCells;
+	private int[] moveMarks;
+	private int moves;
+	/*
+		Moves made when the board was found without solution, -1 if it has one
+	 */
+	private int broken = -1;
+
+	/**
+	 * @param puzzle puzzle to solve, null for the empty cells, left untouched
+	 */
+	public SolveSession(Integer[][] puzzle) throws IllegalArgumentException {
+		this.size = puzzle.length;
+		Integer[][] copy = new Integer[size][];
+		for (int i = 0; i < size; i++)
+			copy[i] = puzzle[i].clone();
+		this.board = new SudokuBoard(copy);
+		this.filled = new boolean[size * size];
+		for (int i = 0; i < size; i++) {
+			if (copy[i].length != size)
+				throw new IllegalArgumentException("The matrix must be square");
+			for (int j = 0; j < size; j++)
+				filled[i * size + j] = copy[i][j] != null;
+		}
+		this.moveCells = new int[size * size];
+		this.moveMarks = new int[size * size];
+		if (!board.propagateSingles())
+			broken = 0;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Sets the number of an empty point
+	 * @param row row of the point
+	 * @param col column of the point
+	 * @param number number to set
+	 * @return false if the point is not empty or the number is not one of its candidates
+	 */
+	public boolean apply(int row, int col, int number) throws IllegalArgumentException {
+		if (number < 1 || number > size)
+			throw new IllegalArgumentException("Invalid number " + number);
+		if (isFilled(row, col) || (board.getCandidates(row, col) & Point.bit(number)) == 0)
+			return false;
+		int mark = board.mark();
+		if (!board.set(row, col, number) && broken < 0)
+			broken = moves + 1;
+		int cell = row * size + col;
+		filled[cell] = true;
+		push();
+		moveCells[moves] = cell;
+		moveMarks[moves++] = mark;
+		return true;
+	}
+
+	/**
+	 * Erases a candidate of an empty point, as a move
+	 * @param row row of the point
+	 * @param col column of the point
+	 * @param number number to erase
+	 * @return false if the point is not empty or the number is not one of its candidates
+	 */
+	public boolean erase(int row, int col, int number) throws IllegalArgumentException {
+		if (!isCandidate(row, col, number) || isFilled(row, col))
+			return false;
+		int mark = board.mark();
+		if (!board.erase(row, col, number) && broken < 0)
+			broken = moves + 1;
+		push();
+		moveCells[moves] = -1;
+		moveMarks[moves++] = mark;
+		return true;
+	}
+
+	/**
+	 * Reverts the last move, with the candidates it discarded
+	 * @return false if there are no moves
+	 */
+	public boolean undo() {
+		if (moves == 0)
+			return false;
+		board.undoTo(moveMarks[--moves]);
+		if (moveCells[moves] >= 0)
+			filled[moveCells[moves]] = false;
+		if (broken > moves)
+			broken = -1;
+		return true;
+	}
+
+	private void push() {
+		if (moves == moveCells.length) {
+			moveCells = Arrays.copyOf(moveCells, moves * 2);
+			moveMarks = Arrays.copyOf(moveMarks, moves * 2);
+		}
+	}
+
+	/**
+	 * @return amount of moves made and not undone
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * @return false if a number was erased from every candidate of a point or
+	 * house, so no move leads to a solution until one is undone
+	 */
+	public boolean isValid() {
+		return broken < 0;
+	}
+
+	/**
+	 * @return true if the point was given or set by a move
+	 */
+	public boolean isFilled(int row, int col) throws IllegalArgumentException {
+		board.getCandidates(row, col);
+		return filled[row * size + col];
+	}
+
+	/**
+	 * @return the number of the point, null if it's not filled
+	 */
+	public Integer get(int row, int col) throws IllegalArgumentException {
+		return isFilled(row, col) ? Point.lowestNumber(board.getCandidates(row, col)) : null;
+	}
+
+	/**
+	 * @return the numbers not erased from the point, one bit per number
+	 */
+	public long getCandidates(int row, int col) throws IllegalArgumentException {
+		return board.getCandidates(row, col);
+	}
+
+	public boolean isCandidate(int row, int col, int number) throws IllegalArgumentException {
+		return number >= 1 && number <= size && (board.getCandidates(row, col) & Point.bit(number)) != 0;
+	}
+
+	/**
+	 * @return true if every point is filled and the board has a solution
+	 */
+	public boolean isSolved() {
+		if (broken >= 0)
+			return false;
+		for (boolean cell : filled) {
+			if (!cell)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the next logical step without applying it: an empty point left with
+	 * a single candidate, or else what the technique with the lowest rating
+	 * that discards something would place or discard
+	 * @return the step, null if the board has no solution or no technique finds anything
+	 */
+	public Step hint() {
+		if (broken >= 0)
+			return null;
+		for (int cell = 0; cell < filled.length; cell++) {
+			long mask = board.getCandidates(cell / size, cell % size);
+			if (!filled[cell] && Long.bitCount(mask) == 1)
+				return new Step(Technique.UNIQUE_POSSIBILITIES, new int[]{cell}, new long[]{mask}, true, new int[]{cell}, size);
+		}
+		return board.nextStep();
+	}
+}
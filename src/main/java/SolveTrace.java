@@ -0,0 +1,110 @@
+/**
+ * Records every possibility discarded by the techniques of a SudokuBoard,
+ * so a solve can be checked against a known solution afterwards.
+ * Events are packed in a preallocated ring buffer, when it's full the
+ * oldest ones are overwritten. Boards built without a trace record nothing.
+ */
+public class SolveTrace {
+
+	private static final int CELL_BITS = 16;
+	private static final int NUMBER_BITS = 8;
+
+	/*
+		technique << 24 | cell << 8 | number
+	 */
+	private final int[] events;
+	private long recorded = 0;
+
+	/**
+	 * @param capacity amount of events kept
+	 */
+	public SolveTrace(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+		this.events = new int[capacity];
+	}
+
+	/**
+	 * @param technique technique that discarded the numbers
+	 * @param cell position of the point
+	 * @param discarded numbers discarded, one bit per number
+	 */
+	void record(Technique technique, int cell, long discarded) {
+		for (; discarded != 0; discarded &= discarded - 1) {
+			int number = Long.numberOfTrailingZeros(discarded) + 1;
+			events[(int) (recorded++ % events.length)] =
+					technique.ordinal() << (CELL_BITS + NUMBER_BITS) | cell << NUMBER_BITS | number;
+		}
+	}
+
+	/**
+	 * @return amount of events recorded, including the overwritten ones
+	 */
+	public long getRecorded() {
+		return recorded;
+	}
+
+	/**
+	 * @return amount of events kept
+	 */
+	public int size() {
+		return (int) Math.min(recorded, events.length);
+	}
+
+	/**
+	 * @param i event from 0, the oldest kept, to size() - 1
+	 */
+	public Technique getTechnique(int i) {
+		return Technique.values()[event(i) >>> (CELL_BITS + NUMBER_BITS)];
+	}
+
+	/**
+	 * @param i event from 0, the oldest kept, to size() - 1
+	 * @return position of the point, row * size + col
+	 */
+	public int getCell(int i) {
+		return (event(i) >>> NUMBER_BITS) & ((1 << CELL_BITS) - 1);
+	}
+
+	/**
+	 * @param i event from 0, the oldest kept, to size() - 1
+	 */
+	public int getNumber(int i) {
+		return event(i) & ((1 << NUMBER_BITS) - 1);
+	}
+
+	private int event(int i) {
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException("Event " + i + " of " + size());
+		return events[(int) ((recorded - size() + i) % events.length)];
+	}
+
+	/**
+	 * @param solution known solution of the board
+	 * @return the first event that discarded the number of the solution, -1 if none did
+	 */
+	public int verify(Integer[][] solution) {
+		int size = solution.length;
+		for (int i = 0; i < size(); i++) {
+			int cell = getCell(i);
+			Integer expected = solution[cell / size][cell % size];
+			if (expected != null && expected == getNumber(i))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param i event from 0, the oldest kept, to size() - 1
+	 * @param size size of the board
+	 * @return the event in a readable format
+	 */
+	public String describe(int i, int size) {
+		return getTechnique(i).getMethod() + " discarded " + getNumber(i)
+				+ " from (" + getCell(i) / size + ", " + getCell(i) % size + ")";
+	}
+
+	public void clear() {
+		recorded = 0;
+	}
+}
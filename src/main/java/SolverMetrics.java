@@ -0,0 +1,25 @@
+/**
+ * Listener of the solve loop of SudokuBoard. Every method does nothing by
+ * default, and boards built with NONE don't even read the clock.
+ * Implementations shared between boards must be thread safe.
+ */
+public interface SolverMetrics {
+
+	SolverMetrics NONE = new SolverMetrics() {
+	};
+
+	/**
+	 * Called at the start of every iteration of the solve loop
+	 */
+	default void iteration() {
+	}
+
+	/**
+	 * Called after every run of a technique
+	 * @param technique technique applied
+	 * @param eliminations amount of possibilities discarded by the run
+	 * @param nanos time taken by the run
+	 */
+	default void technique(Technique technique, long eliminations, long nanos) {
+	}
+}
@@ -0,0 +1,98 @@
+import java.util.Arrays;
+
+/**
+ * A logical step found on a board without applying it: the technique, the
+ * points it changes and, for every point, the numbers it discards or, when
+ * the step places a number, that number. The base points are the ones the
+ * deduction is made from, the house of a hidden single, the points of a
+ * subset, the base lines of a fish, the pivot and pincers of a wing, the
+ * chain of a colouring or the first point of an alternating chain
+ */
+public class Step {
+
+	private final Technique technique;
+	private final int[] cells;
+	private final long[] numbers;
+	private final boolean placement;
+	private final int[] base;
+	private final int size;
+
+	Step(Technique technique, int[] cells, long[] numbers, boolean placement, int[] base, int size) {
+		this.technique = technique;
+		this.cells = cells;
+		this.numbers = numbers;
+		this.placement = placement;
+		this.base = base;
+		this.size = size;
+	}
+
+	public Technique getTechnique() {
+		return technique;
+	}
+
+	/**
+	 * @return true if the step places a number, false if it discards possibilities
+	 */
+	public boolean isPlacement() {
+		return placement;
+	}
+
+	/**
+	 * @return amount of points changed by the step
+	 */
+	public int getPoints() {
+		return cells.length;
+	}
+
+	public int getRow(int point) {
+		return cells[point] / size;
+	}
+
+	public int getCol(int point) {
+		return cells[point] % size;
+	}
+
+	/**
+	 * @return amount of points the step is based on
+	 */
+	public int getBasePoints() {
+		return base.length;
+	}
+
+	public int getBaseRow(int point) {
+		return base[point] / size;
+	}
+
+	public int getBaseCol(int point) {
+		return base[point] % size;
+	}
+
+	/**
+	 * @return the numbers discarded from the point, one bit per number,
+	 * or the number placed there
+	 */
+	public long getNumbers(int point) {
+		return numbers[point];
+	}
+
+	/**
+	 * @return the number placed by the step, 0 if it discards possibilities
+	 */
+	public int getNumber() {
+		return placement ? Point.lowestNumber(numbers[0]) : 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(technique.toString());
+		for (int i = 0; i < cells.length; i++) {
+			builder.append(placement ? " set " : " discard ")
+					.append(Arrays.toString(Point.toNumbers(numbers[i])))
+					.append(" at (").append(getRow(i)).append(", ").append(getCol(i)).append(')');
+		}
+		builder.append(" from");
+		for (int i = 0; i < base.length; i++)
+			builder.append(" (").append(getBaseRow(i)).append(", ").append(getBaseCol(i)).append(')');
+		return builder.toString();
+	}
+}
@@ -1,524 +1,1644 @@
-import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BiFunction;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
 
 public class SudokuBoard {
-	private final Integer[][] board;
-	boolean stop = false;
+	private Integer[][] board;
 	private final int size;
-	private final static int HIDDEN_TRIPLETS_MIN_UNKNOWNS = 7;
-	private final static int TRIPLETS_MAX_APPEARANCES = 3;
-
-	BiFunction<Point, Point, Boolean> columnFilter =
-			(A, B) -> A.getCol() == B.getCol();
-	BiFunction<Point, Point, Boolean> rowFilter =
-			(A, B) -> A.getRow() == B.getRow();
-	BiFunction<Point, Point, Boolean> quadrantFilter =
-			(A, B) -> A.getQuadrant() == B.getQuadrant();
-
-	Function<String, BiFunction<Point, Point, Boolean>> filter_selector =
-			(filter) -> switch (filter) {
-				case "col" -> columnFilter;
-				case "row" -> rowFilter;
-				default -> quadrantFilter;
-			};
-	private final HashSet<Point> points;
+	/*
+		Biggest fish discardFromXWing looks for, 4 is a Jellyfish
+	 */
+	private final static int MAX_FISH = 4;
+	/*
+		Biggest naked or hidden subset looked for, 4 is a quad
+	 */
+	private final static int MAX_SUBSET = 4;
+	/*
+		Most implications followed by discardFromAlternatingChains from its first point
+	 */
+	private final static int MAX_CHAIN = 16;
+
+	private final BoardIndex index;
+	/*
+		Points addressed by row * size + col
+	 */
+	private final Point[] points;
+
+	/*
+		Solved cells whose number still has to be erased from their peers,
+		every cell is queued at most once
+	 */
+	private final int[] queue;
+	private final boolean[] queued;
+	private int queueHead;
+	private int queueTail;
+	private boolean contradiction;
+
+	/*
+		houseStamp[house] holds the value of stamp when the house last changed,
+		each technique keeps the stamp of its last run to skip unchanged houses
+	 */
+	private final int[] houseStamp;
+	/*
+		Union of the possibilities of each row and column inside a quadrant,
+		scratch space of discardMandatoryNumberInColOrRowForQuadrant
+	 */
+	private final long[] rowSlices;
+	private final long[] colSlices;
+	/*
+		Lines that can be the base of a fish and the positions of the number in them,
+		scratch space of discardFromXWing
+	 */
+	private final int[] fishLines;
+	private final long[] fishPositions;
+	private int fishBases;
+	/*
+		Unsolved points of the house being checked, and the masks combined
+		looking for a subset with the position of the point, or the bit of
+		the number, each one belongs to,
+		scratch space of spotNakedSubsets and spotHiddenSubsets
+	 */
+	private final int[] subsetCells;
+	private final long[] subsetMasks;
+	private final long[] subsetItemMasks;
+	private final int[] subsetKeys;
+	private int subsetUnsolved;
+	private long subsetSolved;
+	private int subsetItems;
+	/*
+		Strong links of the board, refreshed from the houses changed since linksStamp
+	 */
+	private final LinkGraph links;
+	/*
+		Colour of every point, scratch space of discardFromSimpleColouring,
+		and points waiting to be coloured
+	 */
+	private final int[] colours;
+	private final int[] colourQueue;
+	private final int[] houseScratch = new int[3];
+	/*
+		Scratch space of discardFromAlternatingChains, created on its first run.
+		A possibility is a node, cell * size + number - 1, and an implication a
+		state, node * 2 + 1 if the possibility is true and node * 2 if it's false.
+		chainVisited and chainSeen hold chainRun when the state was reached, or the
+		node is weakly linked to the first one, in the current chain
+	 */
+	private int[] chainVisited;
+	private int[] chainQueue;
+	private int[] chainSeen;
+	private int[] chainLinks;
+	private int chainRun;
+	private int stamp;
+	/*
+		Stamp of the last run of every technique, indexed by ordinal
+	 */
+	private final int[] runStamps = new int[Technique.values().length];
+	private int linksStamp;
+
+	/*
+		Techniques tried in order after propagating the solved points,
+		the loop starts again as soon as one of them discards something
+	 */
+	private static final Technique[] SOLVE_ORDER = {
+			Technique.MANDATORY_NUMBER_IN_COL_OR_ROW,
+			Technique.QUADRANT_POSSIBILITIES,
+			Technique.NAKED_SUBSETS,
+			Technique.HIDDEN_SUBSETS,
+			Technique.XY_WING,
+			Technique.XYZ_WING,
+			Technique.X_WING,
+			Technique.SIMPLE_COLOURING,
+			Technique.ALTERNATING_CHAINS,
+	};
+	/*
+		Techniques tried by grade, from the lowest rating
+	 */
+	private static final Technique[] GRADE_ORDER = Arrays.stream(Technique.values())
+			.sorted(Comparator.comparingDouble(Technique::getRating))
+			.toArray(Technique[]::new);
+	/*
+		The listener and trace given to the constructor, swapped out by nextStep
+		while it tries the techniques
+	 */
+	private SolverMetrics metrics;
+	/*
+		null unless the board was built to record its eliminations
+	 */
+	private SolveTrace trace;
+	private Technique current = null;
+	/*
+		Points given a single possibility by setUnique, read by nextStep to
+		tell the techniques that place a number from the ones that discard
+	 */
+	private int placements;
+	/*
+		Biggest subset or fish that discarded something in the current run,
+		0 for the other techniques, gives the rating of the run
+	 */
+	private int runSize;
+	/*
+		Set while nextStep runs a technique, which then stops at its first
+		deduction and leaves the points it's based on in stepBase
+	 */
+	private boolean stepping;
+	private int[] stepBase;
+	private int stepBaseSize;
+	/*
+		Possibilities discarded since the board was loaded
+	 */
+	private long eliminations;
+	/*
+		Created on the first search and reused by the next ones
+	 */
+	private SudokuSearch search;
+	private long nodeLimit = Long.MAX_VALUE;
+	/*
+		Whether the last search gave up at the node limit
+	 */
+	private boolean limitReached;
+	private SolutionCounter counter;
+	/*
+		null unless the search is split between the workers of a pool
+	 */
+	private ForkJoinPool pool;
+	private long[] masks;
+
+	/*
+		Undo log, the possibilities every changed point had before the change,
+		only written while there's a mark. Created on the first mark, a point
+		loses every possibility at most once between two marks so it never grows
+	 */
+	private int[] trailCells;
+	private long[] trailMasks;
+	private int trailSize;
+	/*
+		Length of the trail and state of the queue at every mark
+	 */
+	private int[] markTrail = new int[8];
+	private int[] markQueueHead = new int[8];
+	private int[] markQueueTail = new int[8];
+	private boolean[] markContradiction = new boolean[8];
+	private long[] markEliminations = new long[8];
+	private int marks;
 
 	public SudokuBoard(Integer[][] board) throws IllegalArgumentException {
-		this.board = board;
+		this(board, SolverMetrics.NONE);
+	}
+
+	/**
+	 * @param board board to solve, null for the empty cells
+	 * @param metrics listener notified of every technique run
+	 */
+	public SudokuBoard(Integer[][] board, SolverMetrics metrics) throws IllegalArgumentException {
+		this(board, metrics, null);
+	}
+
+	/**
+	 * @param board board to solve, null for the empty cells
+	 * @param metrics listener notified of every technique run
+	 * @param trace where every possibility discarded by a technique is recorded, null to record nothing
+	 */
+	public SudokuBoard(Integer[][] board, SolverMetrics metrics, SolveTrace trace) throws IllegalArgumentException {
+		this.metrics = metrics;
+		this.trace = trace;
 		this.size = board.length;
 		int n = (int) Math.sqrt(size);
 
 		if (Math.pow(n, 2) != size)
 			throw new IllegalArgumentException("The matrix must be square");
+		if (size > Point.MAX_NUMBERS)
+			throw new IllegalArgumentException("The matrix can not be bigger than " + Point.MAX_NUMBERS);
+
+		this.index = BoardIndex.of(n);
+		this.points = new Point[size * size];
+		this.queue = new int[size * size];
+		this.queued = new boolean[size * size];
+		this.houseStamp = new int[size * 3];
+		this.rowSlices = new long[n];
+		this.colSlices = new long[n];
+		this.fishLines = new int[size];
+		this.fishPositions = new long[size];
+		this.subsetCells = new int[size];
+		this.subsetMasks = new long[size];
+		this.subsetItemMasks = new long[size];
+		this.subsetKeys = new int[size];
+		this.links = new LinkGraph(index);
+		this.colours = new int[size * size];
+		this.colourQueue = new int[size * size];
 
-		this.points = new HashSet<>(size * size);
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++)
+				this.points[index.cell(i, j)] = new Point(i, j, n);
+		}
+		reset(board);
+	}
 
+	/**
+	 * Loads another board of the same size, reusing every point and table
+	 * of this one, so solving many boards with one instance allocates nothing
+	 * per board
+	 * @param board board to solve, null for the empty cells, numbers from 1 to size
+	 */
+	public void reset(Integer[][] board) throws IllegalArgumentException {
+		if (board.length != size)
+			throw new IllegalArgumentException("Expected a board of size " + size + ", got " + board.length);
+		this.board = board;
+		clear();
+
+		long full = Point.fullMask(size);
 		for (int i = 0; i < size; i++) {
+			if (board[i].length != size)
+				throw new IllegalArgumentException("The matrix must be square");
 			for (int j = 0; j < size; j++) {
-				if (board[i][j] != null)
-					this.points.add(new Point(i, j, n, board[i][j]));
-				else
-					this.points.add(new Point(i, j, n));
+				int cell = index.cell(i, j);
+				if (board[i][j] != null) {
+					if (board[i][j] < 1 || board[i][j] > size)
+						throw new IllegalArgumentException("Invalid number " + board[i][j] + " at (" + i + ", " + j + ")");
+					points[cell].setMask(Point.bit(board[i][j]));
+					enqueue(cell);
+				} else
+					points[cell].setMask(full);
+			}
+		}
+	}
+
+	/**
+	 * Loads the possibilities saved by getCandidates, so a partially solved
+	 * board goes on from where it was instead of from its clues. The solved
+	 * board is written to a new matrix
+	 * @param candidates possibilities of every point, one bit per number
+	 */
+	public void reset(long[] candidates) throws IllegalArgumentException {
+		if (candidates.length != points.length)
+			throw new IllegalArgumentException("Expected " + points.length + " cells, got " + candidates.length);
+		long full = Point.fullMask(size);
+		for (long mask : candidates) {
+			if ((mask & ~full) != 0)
+				throw new IllegalArgumentException("Invalid possibilities " + Long.toBinaryString(mask));
+		}
+		this.board = new Integer[size][size];
+		restore(candidates);
+	}
+
+	/**
+	 * Loads the possibilities like reset(long[]) without checking them and
+	 * keeping the board matrix, so it allocates nothing. For callers that
+	 * restore the same state many times and don't read the board
+	 * @param candidates possibilities of every point, one bit per number
+	 */
+	void restore(long[] candidates) {
+		clear();
+		for (int cell = 0; cell < points.length; cell++) {
+			points[cell].setMask(candidates[cell]);
+			if (candidates[cell] == 0)
+				contradiction = true;
+			else if (points[cell].uniquePossibility())
+				enqueue(cell);
+		}
+	}
+
+	/**
+	 * @param candidates where the possibilities of every point are written,
+	 * one bit per number, to be loaded by reset or written by BoardCodec
+	 */
+	public void getCandidates(long[] candidates) throws IllegalArgumentException {
+		if (candidates.length != points.length)
+			throw new IllegalArgumentException("Expected " + points.length + " cells, got " + candidates.length);
+		for (int cell = 0; cell < points.length; cell++)
+			candidates[cell] = points[cell].getMask();
+	}
+
+	/**
+	 * Drops the state of the previous board
+	 */
+	private void clear() {
+		queueHead = 0;
+		queueTail = 0;
+		Arrays.fill(queued, false);
+		contradiction = false;
+		stamp = 1;
+		Arrays.fill(houseStamp, stamp);
+		Arrays.fill(runStamps, 0);
+		linksStamp = 0;
+		trailSize = 0;
+		marks = 0;
+		limitReached = false;
+		eliminations = 0;
+		current = null;
+	}
+
+	/**
+	 * @return the size of the boards this instance solves
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Splits the search of solveSudoku and grade between the workers of a
+	 * pool, so a single hard board uses more than one core, and counts the
+	 * solutions on it. The techniques run on the calling thread. A board with
+	 * several solutions may get a different one depending on the workers
+	 * @param pool pool searching and counting, null to search on the calling
+	 * thread and count on the common pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		counter = null;
+	}
+
+	/**
+	 * @param nodeLimit most guesses of the search of solveSudoku and grade,
+	 * shared by the workers of the pool if there's one, past it they give up
+	 * and isLimitReached is true
+	 */
+	public void setNodeLimit(long nodeLimit) throws IllegalArgumentException {
+		if (nodeLimit < 1)
+			throw new IllegalArgumentException("Node limit must be positive, got " + nodeLimit);
+		this.nodeLimit = nodeLimit;
+		search = null;
+	}
+
+	/**
+	 * @return true if the search of the board loaded gave up at the node limit,
+	 * then solveSudoku returned null without knowing if there's a solution
+	 */
+	public boolean isLimitReached() {
+		return limitReached;
+	}
+
+	/**
+	 * Starts solving the sudoku, when the techniques make no more progress
+	 * the remaining points are found with a backtracking search
+	 * @return the solved board, null if the sudoku has no solution or the
+	 * search reached the node limit
+	 */
+	public Integer[][] solveSudoku() {
+		propagate();
+		if (contradiction) {
+			updateBoard();
+			return null;
+		}
+		if (!isSolved() && !search()) {
+			updateBoard();
+			return null;
+		}
+		updateBoard();
+		return board;
+	}
+
+	/**
+	 * Counts the solutions of the sudoku, the techniques are applied first
+	 * and the rest of the search is split between the workers of the pool
+	 * given to setPool, or of the common pool if there's none. The points
+	 * keep the possibilities the techniques left, the board is not modified
+	 * @param limit amount of solutions to stop at, 2 to check that a puzzle is unique
+	 * @return the amount of solutions, at most limit
+	 */
+	public long countSolutions(long limit) throws IllegalArgumentException {
+		if (limit < 1)
+			throw new IllegalArgumentException("Limit must be positive, got " + limit);
+		propagate();
+		if (contradiction)
+			return 0;
+		if (isSolved())
+			return 1;
+		if (counter == null)
+			counter = new SolutionCounter(index, pool == null ? ForkJoinPool.commonPool() : pool);
+		if (masks == null)
+			masks = new long[points.length];
+		for (int cell = 0; cell < points.length; cell++)
+			masks[cell] = points[cell].getMask();
+		return counter.count(masks, limit);
+	}
+
+	/**
+	 * Solves the sudoku applying at every step the technique with the lowest
+	 * rating that discards something, and rates it by the hardest one used.
+	 * It's the loop of solveSudoku in another order, so it costs about the
+	 * same. When the budget runs out the board is left as it was at that step
+	 * @param nanos time budget, 0 for none
+	 * @param steps most technique runs that discard something, 0 for no limit
+	 * @return the grade of the puzzle
+	 */
+	public Grade grade(long nanos, int steps) throws IllegalArgumentException {
+		if (nanos < 0 || steps < 0)
+			throw new IllegalArgumentException("The budget can not be negative");
+		long start = nanos > 0 ? System.nanoTime() : 0;
+		int[] uses = new int[Technique.values().length];
+		Technique hardest = null;
+		double rating = 0;
+		int step = 0;
+		boolean changes = true;
+
+		while (changes && !contradiction) {
+			if (steps > 0 && step >= steps || nanos > 0 && System.nanoTime() - start >= nanos) {
+				updateBoard();
+				return new Grade(Grade.Status.ABORTED, hardest, rating, step, uses);
+			}
+			metrics.iteration();
+			changes = false;
+			for (Technique technique : GRADE_ORDER) {
+				if (run(technique)) {
+					uses[technique.ordinal()]++;
+					step++;
+					if (hardest == null || technique.getRating(runSize) > rating) {
+						hardest = technique;
+						rating = technique.getRating(runSize);
+					}
+					changes = true;
+					break;
+				}
+				if (contradiction)
+					break;
 			}
 		}
+
+		Grade.Status status = Grade.Status.SOLVED;
+		if (contradiction)
+			status = Grade.Status.INVALID;
+		else if (!isSolved()) {
+			if (search())
+				status = Grade.Status.SEARCHED;
+			else
+				status = limitReached ? Grade.Status.ABORTED : Grade.Status.INVALID;
+		}
+		updateBoard();
+		return new Grade(status, hardest, rating, step, uses);
+	}
+
+	/**
+	 * Sets the number of a point and applies the techniques to the rest of
+	 * the board, between a mark and an undoTo it's a guess
+	 * @param row row of the point
+	 * @param col column of the point
+	 * @param number number to set
+	 * @return false if the board has no solution with the number there
+	 */
+	public boolean place(int row, int col, int number) throws IllegalArgumentException {
+		if (row < 0 || row >= size || col < 0 || col >= size || number < 1 || number > size)
+			throw new IllegalArgumentException("No point (" + row + ", " + col + ") or number " + number);
+		int cell = index.cell(row, col);
+		if (!points[cell].containsPossibility(number))
+			return false;
+		setUnique(cell, number);
+		propagate();
+		return !contradiction;
+	}
+
+	/**
+	 * Saves the state of the points, from here on every change is logged so
+	 * undoTo can revert them, which costs as much as the changes made and not
+	 * a copy of the board. Marks can be nested
+	 * @return the mark to give to undoTo
+	 */
+	public int mark() {
+		if (trailCells == null) {
+			trailCells = new int[points.length * size];
+			trailMasks = new long[points.length * size];
+		}
+		if (marks == markTrail.length) {
+			markTrail = Arrays.copyOf(markTrail, marks * 2);
+			markQueueHead = Arrays.copyOf(markQueueHead, marks * 2);
+			markQueueTail = Arrays.copyOf(markQueueTail, marks * 2);
+			markContradiction = Arrays.copyOf(markContradiction, marks * 2);
+			markEliminations = Arrays.copyOf(markEliminations, marks * 2);
+		}
+		markTrail[marks] = trailSize;
+		markQueueHead[marks] = queueHead;
+		markQueueTail[marks] = queueTail;
+		markContradiction[marks] = contradiction;
+		markEliminations[marks] = eliminations;
+		return marks++;
 	}
 
 	/**
-	 * Starts solving the sudoku
+	 * Reverts every change made to the points since the mark, the mark and
+	 * the ones made after it are dropped
+	 * @param mark mark given by mark()
 	 */
-	public void solveSudoku() {
+	public void undoTo(int mark) throws IllegalArgumentException {
+		if (mark < 0 || mark >= marks)
+			throw new IllegalArgumentException("No mark " + mark + ", there are " + marks);
+		while (trailSize > markTrail[mark]) {
+			int cell = trailCells[--trailSize];
+			points[cell].setMask(trailMasks[trailSize]);
+			stamp++;
+			houseStamp[index.rowOf(cell)] = stamp;
+			houseStamp[size + index.colOf(cell)] = stamp;
+			houseStamp[2 * size + index.quadrantOf(cell)] = stamp;
+		}
+		for (int i = markQueueTail[mark]; i < queueTail; i++)
+			queued[queue[i]] = false;
+		queueHead = markQueueHead[mark];
+		queueTail = markQueueTail[mark];
+		contradiction = markContradiction[mark];
+		eliminations = markEliminations[mark];
+		marks = mark;
+	}
 
+	/**
+	 * Applies the techniques until none of them discards anything
+	 * or a contradiction is found
+	 */
+	private void propagate() {
 		boolean changes = true;
 
 		while (changes) {
-			long err = points.stream()
-					.filter(p -> p.getPossibilities().size() == 0)
-					.count();
-			if (err > 0) {
-				points.stream()
-						.filter(p -> p.getPossibilities().size() == 0)
-						.forEach(System.out::println);
+			metrics.iteration();
+			run(Technique.UNIQUE_POSSIBILITIES);
+			if (contradiction)
 				break;
+			changes = false;
+			for (Technique technique : SOLVE_ORDER) {
+				if (run(technique)) {
+					changes = true;
+					break;
+				}
 			}
-			changes = discardUniquePossibilities();
-			if (!changes) {
-				changes = discardMandatoryNumberInColOrRowForQuadrant();
-				System.out.println("discardMandatoryNumberInColOrRowForQuadrant");
-			}
-			if (!changes) {
-				changes = discardFromQuadrantPossibilities();
-				System.out.println("discardFromQuadrantPossibilities");
-			}
-			if (!changes) {
-				changes = discardFromXYWing();
-				System.out.println("discardFromXYWing");
+		}
+	}
+
+	/**
+	 * @return true if every point has a unique possibility
+	 */
+	private boolean isSolved() {
+		for (Point point : points) {
+			if (!point.uniquePossibility())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Completes the points starting from their current possibilities, on the
+	 * pool given to setPool if there's one
+	 * @return true if a solution was found
+	 */
+	private boolean search() {
+		if (masks == null)
+			masks = new long[points.length];
+		for (int cell = 0; cell < points.length; cell++)
+			masks[cell] = points[cell].getMask();
+
+		int[] solution;
+		if (pool != null) {
+			if (counter == null)
+				counter = new SolutionCounter(index, pool);
+			solution = counter.solve(masks, nodeLimit);
+			limitReached = counter.isLimitReached();
+		} else {
+			if (search == null)
+				search = new SudokuSearch(index, nodeLimit);
+			solution = search.solve(masks);
+			limitReached = search.isLimitReached();
+		}
+		if (solution == null)
+			return false;
+		for (int cell = 0; cell < points.length; cell++) {
+			if (!points[cell].uniquePossibility()) {
+				long before = points[cell].getMask();
+				points[cell].setPossibilities(solution[cell]);
+				changed(cell, before);
 			}
-			if (!changes) {
-				changes = discardFromXWing();
-				System.out.println("discardFromXWing");
+		}
+		return true;
+	}
+
+	/**
+	 * @param row row of the point
+	 * @param col column of the point
+	 * @return the possibilities of the point, one bit per number
+	 */
+	public long getCandidates(int row, int col) throws IllegalArgumentException {
+		if (row < 0 || row >= size || col < 0 || col >= size)
+			throw new IllegalArgumentException("No point (" + row + ", " + col + ")");
+		return points[index.cell(row, col)].getMask();
+	}
+
+	/**
+	 * Sets the number of a point and erases the numbers of the points solved
+	 * from their peers, no other technique is applied
+	 * @param row row of the point
+	 * @param col column of the point
+	 * @param number number to set
+	 * @return false if the board has no solution with the number there
+	 */
+	public boolean set(int row, int col, int number) throws IllegalArgumentException {
+		if (row < 0 || row >= size || col < 0 || col >= size || number < 1 || number > size)
+			throw new IllegalArgumentException("No point (" + row + ", " + col + ") or number " + number);
+		int cell = index.cell(row, col);
+		if (!points[cell].containsPossibility(number))
+			return false;
+		setUnique(cell, number);
+		return propagateSingles();
+	}
+
+	/**
+	 * Erases a number from the possibilities of a point and then the numbers
+	 * of the points solved from their peers, no other technique is applied
+	 * @param row row of the point
+	 * @param col column of the point
+	 * @param number number to erase
+	 * @return false if the board has no solution without the number there
+	 */
+	public boolean erase(int row, int col, int number) throws IllegalArgumentException {
+		if (row < 0 || row >= size || col < 0 || col >= size || number < 1 || number > size)
+			throw new IllegalArgumentException("No point (" + row + ", " + col + ") or number " + number);
+		discard(index.cell(row, col), number);
+		return propagateSingles();
+	}
+
+	/**
+	 * Erases the numbers of the solved points from their peers, including the
+	 * points solved on the way, no other technique is applied
+	 * @return false if the board has no solution
+	 */
+	public boolean propagateSingles() {
+		run(Technique.UNIQUE_POSSIBILITIES);
+		return !contradiction;
+	}
+
+	/**
+	 * Finds the first deduction of the technique with the lowest rating that
+	 * discards something, other than erasing solved numbers, without applying
+	 * it: one hidden single, subset, fish, wing, colouring or chain, with the
+	 * points it's based on. The discards are read from the undo log, so it
+	 * costs at most one run of the techniques tried and not a solve. The runs
+	 * are not reported to the metrics nor recorded in the trace
+	 * @return the step, a placement when every point changed was given its
+	 * number, like a hidden single, null if no technique discards anything
+	 */
+	public Step nextStep() {
+		if (contradiction)
+			return null;
+		SolverMetrics metrics = this.metrics;
+		SolveTrace trace = this.trace;
+		this.metrics = SolverMetrics.NONE;
+		this.trace = null;
+		// a technique stopped early didn't check every house, so it must not skip them next time
+		int[] stamps = runStamps.clone();
+		if (stepBase == null)
+			stepBase = new int[points.length];
+		stepping = true;
+		int mark = mark();
+		int start = trailSize;
+		try {
+			for (Technique technique : GRADE_ORDER) {
+				placements = 0;
+				stepBaseSize = 0;
+				if (technique == Technique.UNIQUE_POSSIBILITIES || !run(technique))
+					continue;
+				int[] cells = new int[trailSize - start];
+				long[] numbers = new long[trailSize - start];
+				int count = 0;
+				for (int i = start; i < trailSize; i++) {
+					int cell = trailCells[i];
+					int found = 0;
+					while (found < count && cells[found] != cell)
+						found++;
+					if (found == count) {
+						cells[count] = cell;
+						numbers[count++] = trailMasks[i] & ~points[cell].getMask();
+					}
+				}
+				boolean placement = placements == count;
+				if (placement) {
+					for (int i = 0; i < count; i++)
+						numbers[i] = points[cells[i]].getMask();
+				}
+				return new Step(technique, Arrays.copyOf(cells, count), Arrays.copyOf(numbers, count), placement,
+						Arrays.copyOf(stepBase, stepBaseSize), size);
 			}
-//			if (!changes)
-//				changes = spotHiddenPairs();
-//			if (!changes)
-//				changes = spotNakedTriplets();
+			return null;
+		} finally {
+			undoTo(mark);
+			stepping = false;
+			System.arraycopy(stamps, 0, runStamps, 0, stamps.length);
+			this.metrics = metrics;
+			this.trace = trace;
 		}
-		updateBoard();
 	}
 
-	/*
-		To DELETE
+	/**
+	 * Applies the technique and reports it to the metrics,
+	 * the clock is only read when there's a listener
+	 * @param technique technique to apply
+	 * @return true if possibilities were discarded
+	 */
+	private boolean run(Technique technique) {
+		if (metrics == SolverMetrics.NONE)
+			return apply(technique);
+		long before = eliminations;
+		long start = System.nanoTime();
+		boolean changes = apply(technique);
+		metrics.technique(technique, eliminations - before, System.nanoTime() - start);
+		return changes;
+	}
+
+	/**
+	 * Applies a single technique once
+	 * @param technique technique to apply
+	 * @return true if possibilities were discarded
+	 */
+	boolean apply(Technique technique) {
+		current = technique;
+		runSize = 0;
+		boolean changes = switch (technique) {
+			case UNIQUE_POSSIBILITIES -> discardUniquePossibilities();
+			case MANDATORY_NUMBER_IN_COL_OR_ROW -> discardMandatoryNumberInColOrRowForQuadrant();
+			case QUADRANT_POSSIBILITIES -> discardFromQuadrantPossibilities();
+			case NAKED_SUBSETS -> spotNakedSubsets();
+			case HIDDEN_SUBSETS -> spotHiddenSubsets();
+			case XY_WING -> discardFromXYWing();
+			case XYZ_WING -> discardFromXYZWing();
+			case X_WING -> discardFromXWing();
+			case SIMPLE_COLOURING -> discardFromSimpleColouring();
+			case ALTERNATING_CHAINS -> discardFromAlternatingChains();
+		};
+		current = null;
+		return changes;
+	}
+
+	/**
+	 * Must be called after every change made to a point,
+	 * marks its houses as changed and queues the point if it's solved
+	 * @param cell position of the changed point
+	 * @param before possibilities of the point before the change
+	 */
+	private void changed(int cell, long before) {
+		if (marks > 0) {
+			trailCells[trailSize] = cell;
+			trailMasks[trailSize++] = before;
+		}
+		eliminations += Long.bitCount(before & ~points[cell].getMask());
+		if (trace != null && current != null)
+			trace.record(current, cell, before & ~points[cell].getMask());
+		stamp++;
+		houseStamp[index.rowOf(cell)] = stamp;
+		houseStamp[size + index.colOf(cell)] = stamp;
+		houseStamp[2 * size + index.quadrantOf(cell)] = stamp;
+		if (points[cell].uniquePossibility())
+			enqueue(cell);
+		else if (points[cell].getCurrentPossibilities() == 0)
+			contradiction = true;
+	}
+
+	private void enqueue(int cell) {
+		if (queued[cell])
+			return;
+		queued[cell] = true;
+		queue[queueTail++] = cell;
+	}
+
+	/**
+	 * @return the stamp of the last run of the technique, the current one from now on
+	 */
+	private int since(Technique technique) {
+		int since = runStamps[technique.ordinal()];
+		runStamps[technique.ordinal()] = stamp;
+		return since;
+	}
+
+	/**
+	 * @param house house to check, rows first, then columns and then quadrants
+	 * @param since stamp of the last run of a technique
+	 * @return true if the house changed after that run
+	 */
+	private boolean changedSince(int house, int since) {
+		return houseStamp[house] > since;
+	}
+
+	/**
+	 * @param since stamp of the last run of a technique
+	 * @return true if any point changed after that run
+	 */
+	private boolean changedSince(int since) {
+		return stamp > since;
+	}
+
+	/**
+	 * Rebuilds the strong links of the houses changed since the last refresh
+	 */
+	private void refreshLinks() {
+		for (int house = 0; house < 3 * size; house++) {
+			if (changedSince(house, linksStamp))
+				links.refresh(house, points);
+		}
+		linksStamp = stamp;
+	}
+
+	/**
+	 * @param cell position of the point
+	 * @param number number to discard
+	 * @return true if the number was discarded
+	 */
+	private boolean discard(int cell, int number) {
+		long before = points[cell].getMask();
+		if (!points[cell].discardPossibilities(number))
+			return false;
+		changed(cell, before);
+		return true;
+	}
+
+	/**
+	 * @param cell position of the point
+	 * @param numbers numbers to discard, one bit per number
+	 * @return true if any number was discarded
+	 */
+	private boolean discardMask(int cell, long numbers) {
+		long before = points[cell].getMask();
+		if (!points[cell].discardMask(numbers))
+			return false;
+		changed(cell, before);
+		return true;
+	}
+
+	/**
+	 * @param cell position of the point
+	 * @param number number to set as unique possibility
+	 * @return true if changes were made
+	 */
+	private boolean setUnique(int cell, int number) {
+		long before = points[cell].getMask();
+		if (!points[cell].setUniquePossibility(number))
+			return false;
+		placements++;
+		changed(cell, before);
+		return true;
+	}
+
+	/**
+	 * Adds a point to the base of the step being found by nextStep
 	 */
-	public Point getPossibilities(Point point) {
-		return points.stream()
-				.filter(p -> p.getCol() == point.getCol())
-				.filter(p -> p.getRow() == point.getRow())
-				.findFirst().orElse(null);
+	private void base(int cell) {
+		stepBase[stepBaseSize++] = cell;
 	}
 
 	/**
-	 * If there's one set value, then erases that value from the other points possibilities
+	 * Adds the pivot and the pincers of a wing to the base of the step
+	 * @return true, the wing discarded something
+	 */
+	private boolean base(int pivot, int first, int second) {
+		base(pivot);
+		base(first);
+		base(second);
+		return true;
+	}
+
+	/**
+	 * Erases the value of every newly solved point from its peers possibilities,
+	 * the peers solved on the way are handled in the same call
 	 * @return boolean true if the operation discards at least one item
 	 */
 	private boolean discardUniquePossibilities() {
-		AtomicBoolean changes = new AtomicBoolean(false);
-		points.stream()
-				.filter(Point::uniquePossibility)
-				.forEach(point -> {
-					points.stream()
-							.filter(point::interferes)
-							.forEach(p -> {
-								if (p.discardPossibilities(point.getUniquePossibility())) {
-									changes.set(true);
-									bugCatcher("discardUniquePossibilities", point.getUniquePossibility(), p);
-								}
-
-							});
-				});
-		return changes.get();
+		boolean changes = false;
+		while (queueHead < queueTail && !contradiction) {
+			int cell = queue[queueHead++];
+			if (!points[cell].uniquePossibility())
+				continue;
+			int number = points[cell].getUniquePossibility();
+			for (int peer : index.getPeers(cell)) {
+				if (discard(peer, number))
+					changes = true;
+			}
+		}
+		return changes;
 	}
 
 	/**
 	 * If there's a quadrant where one number can only be in one column or in one row
 	 * then that possibility is erased from the same column or row in the other
-	 * quadrants
+	 * quadrants. Only the quadrants changed since the last run are checked.
+	 * The numbers seen in exactly one row or column of the quadrant are found
+	 * for every number at once, with the seen once / seen twice masks
 	 * @return true if there was at least one value discarded
 	 */
 	private boolean discardMandatoryNumberInColOrRowForQuadrant() {
-		AtomicBoolean changes = new AtomicBoolean(false);
+		boolean changes = false;
+		int since = since(Technique.MANDATORY_NUMBER_IN_COL_OR_ROW);
+		int n = index.getN();
 
 		for (int i = 0; i < size; i++) {
-			int finalI = i;
-			List<Point> quadrant = points.stream()
-					.filter(point -> point.getQuadrant() == finalI)
-					.collect(Collectors.toList());
-			IntStream.rangeClosed(1, size).forEachOrdered(number -> {
-				Set<Integer> column = quadrant.stream()
-						.filter(point -> point.containsPossibility(number))
-						.mapToInt(Point::getCol)
-						.boxed()
-						.collect(Collectors.toSet());
-				if (column.size() == 1) {
-					points.stream()
-							.filter(point -> point.getCol() == column.stream().findFirst().orElse(0))
-							.filter(point -> point.getQuadrant() != finalI)
-							.forEach(point -> {
-								if (point.discardPossibilities(number)) {
-									changes.set(true);
-									bugCatcher("discardMandatoryNumberInColOrRowForQuadrant", number, point);
-								}
-							});
+			if (!changedSince(2 * size + i, since))
+				continue;
+			int[] quadrant = index.getQuadrant(i);
+			long rowOnce = 0;
+			long rowTwice = 0;
+			long colOnce = 0;
+			long colTwice = 0;
+			for (int k = 0; k < n; k++) {
+				long row = 0;
+				long col = 0;
+				for (int j = 0; j < n; j++) {
+					row |= points[quadrant[k * n + j]].getMask();
+					col |= points[quadrant[j * n + k]].getMask();
 				}
+				rowSlices[k] = row;
+				colSlices[k] = col;
+				rowTwice |= rowOnce & row;
+				rowOnce |= row;
+				colTwice |= colOnce & col;
+				colOnce |= col;
+			}
 
+			long rowConfined = rowOnce & ~rowTwice;
+			long colConfined = colOnce & ~colTwice;
+			for (int k = 0; k < n; k++) {
+				if ((colSlices[k] & colConfined) != 0)
+					changes |= discardOutsideQuadrant(index.getCol(index.colOf(quadrant[k])), i, colSlices[k] & colConfined);
+				if (stepping && changes)
+					return true;
+				if ((rowSlices[k] & rowConfined) != 0)
+					changes |= discardOutsideQuadrant(index.getRow(index.rowOf(quadrant[k * n])), i, rowSlices[k] & rowConfined);
+				if (stepping && changes)
+					return true;
+			}
+		}
+		return changes;
+	}
 
-				Set<Integer> row = quadrant.stream()
-						.filter(point -> point.containsPossibility(number))
-						.mapToInt(Point::getRow)
-						.boxed()
-						.collect(Collectors.toSet());
-
-				if (row.size() == 1) {
-					points.stream()
-							.filter(point -> point.getRow() == row.stream().findFirst().orElse(0))
-							.filter(point -> point.getQuadrant() != finalI)
-							.filter(point -> point.containsPossibility(number))
-							.forEach(point -> {
-								if (point.discardPossibilities(number)) {
-									changes.set(true);
-									bugCatcher("discardMandatoryNumberInColOrRowForQuadrant", number, point);
-								}
-							});
-				}
-			});
+	/**
+	 * @param house row or column crossing the quadrant
+	 * @param quadrant quadrant that keeps the numbers
+	 * @param numbers numbers to discard, one bit per number
+	 * @return true if there was at least one value discarded. While stepping
+	 * only the first number that discards something is used
+	 */
+	private boolean discardOutsideQuadrant(int[] house, int quadrant, long numbers) {
+		if (stepping && Long.bitCount(numbers) > 1) {
+			for (; numbers != 0; numbers &= numbers - 1) {
+				if (discardOutsideQuadrant(house, quadrant, numbers & -numbers))
+					return true;
+			}
+			return false;
+		}
 
+		boolean changes = false;
+		for (int cell : house) {
+			if (index.quadrantOf(cell) == quadrant)
+				continue;
+			if (discardMask(cell, numbers))
+				changes = true;
+		}
+		if (stepping && changes) {
+			for (int cell : house) {
+				if (index.quadrantOf(cell) == quadrant && (points[cell].getMask() & numbers) != 0)
+					base(cell);
+			}
 		}
-		return changes.get();
+		return changes;
 	}
 
 	/**
 	 * If the quadrant has only one possibility for a number to be
-	 * then it's set as the unique possibility
+	 * then it's set as the unique possibility. Only the quadrants changed since
+	 * the last run are checked, the numbers seen in a single point are found
+	 * for every number at once, with the seen once / seen twice masks
 	 * @return true if at least one item is discarded, false otherwise
 	 */
 	private boolean discardFromQuadrantPossibilities() {
-		AtomicBoolean changes = new AtomicBoolean(false);
+		boolean changes = false;
+		int since = since(Technique.QUADRANT_POSSIBILITIES);
 		for (int i = 0; i < size; i++) {
-			int finalI = i;
-			HashMap<Integer, ArrayList<Point>> map =  new HashMap<>(size);
-			points.stream()
-				.filter(point -> point.getQuadrant() == finalI)
-				.forEach(point -> {
-					point.getPossibilities().forEach(possibility -> {
-						if (map.containsKey(possibility))
-							map.get(possibility).add(point);
-						else
-							map.put(possibility, new ArrayList<>(List.of(point)));
-					});
-				});
-
-			map.forEach((k, v) -> {
-				if (v.size() == 1) {
-					if (v.get(0).setUniquePossibility(k)) {
-						changes.set(true);
-						bugCatcher(v.get(0), "discardFromQuadrantPossibilities", k);
+			if (!changedSince(2 * size + i, since))
+				continue;
+			int[] quadrant = index.getQuadrant(i);
+			long once = 0;
+			long twice = 0;
+			for (int cell : quadrant) {
+				long mask = points[cell].getMask();
+				twice |= once & mask;
+				once |= mask;
+			}
+
+			long singles = once & ~twice;
+			if (singles == 0)
+				continue;
+			for (int cell : quadrant) {
+				long single = points[cell].getMask() & singles;
+				if (single != 0 && setUnique(cell, Point.lowestNumber(single))) {
+					changes = true;
+					if (stepping) {
+						for (int point : quadrant)
+							base(point);
+						return true;
 					}
 				}
-			});
-
+			}
 		}
-		return changes.get();
+		return changes;
 	}
 
 	/**
-	 * We need to find a pivot XY that intersects 2 other cells with XZ and YZ numbers
-	 * All the cells that intersects both the 2 other cells discard automatically Z
+	 * We need to find a pivot XY that sees 2 other cells with XZ and YZ numbers,
+	 * then one of them is Z and every cell that sees both discards Z.
+	 * Only pivots with a house changed since the last run are checked
 	 * @return true if possibilities were discarded
 	 */
 	private boolean discardFromXYWing() {
-		AtomicBoolean changes = new AtomicBoolean(false);
-		List<Point> xy = points.stream()
-				.filter(point -> point.getCurrentPossibilities() == 2)
-				.collect(Collectors.toList());
-
-		xy.forEach(pivot -> {
-			List<Point> wings = xy.stream()
-					.filter(p -> p.interferes(pivot) && !p.equals(pivot))
-					.filter(p -> p.containsOnePossibilityInTwo(
-							pivot.getPossibilities()
-									.stream()
-									.mapToInt(Integer::valueOf)
-									.toArray()
-							)
-					)
-					.collect(Collectors.toList());
-
-			if (wings.size() == 2) {
-				int[] xy_values = pivot.getPossibilities().stream()
-						.mapToInt(Integer::valueOf)
-						.toArray();
-//				if (wings.get(0).interferes(wings.get(1)))
-//					return;
-				boolean conditions = wings.stream().anyMatch(point -> point.containsPossibility(xy_values[0]));
-				conditions = conditions && wings.stream().anyMatch(point -> point.containsPossibility(xy_values[1]));
-
-				if (!conditions)
-					return;
-
-				int discard = wings.get(0).findCommon(wings.get(1));
-				if (discard == 0)
-					return;
-				points.stream()
-						.filter(point -> point.interferes(wings.get(0))
-								&& point.interferes(wings.get(1))
-						).forEach(point -> {
-							if (stop)
-								return;
-							if (point.discardPossibilities(discard)){
-								changes.set(true);
-								bugCatcher("discardFromXYWing", discard, point);
-							}
-						});
+		boolean changes = false;
+		int since = since(Technique.XY_WING);
+
+		for (int cell = 0; cell < points.length; cell++) {
+			long pivot = points[cell].getMask();
+			if (Long.bitCount(pivot) != 2 || !changedAround(cell, since))
+				continue;
+
+			int[] peers = index.getPeers(cell);
+			for (int i = 0; i < peers.length; i++) {
+				long first = points[peers[i]].getMask();
+				if (Long.bitCount(first) != 2 || Long.bitCount(first & pivot) != 1)
+					continue;
+				long z = first & ~pivot;
+				long second = (pivot & ~first) | z;
+				for (int j = i + 1; j < peers.length; j++) {
+					if (points[peers[j]].getMask() == second
+							&& discardSeenByAll(peers[i], peers[j], peers[i], Point.lowestNumber(z))) {
+						changes = true;
+						if (stepping)
+							return base(cell, peers[i], peers[j]);
+					}
+				}
+			}
+		}
+
+		return changes;
+	}
+
+	/**
+	 * We need to find a pivot XYZ that sees 2 other cells with XZ and YZ numbers,
+	 * then one of the three is Z and every cell that sees all of them discards Z.
+	 * Only pivots with a house changed since the last run are checked
+	 * @return true if possibilities were discarded
+	 */
+	private boolean discardFromXYZWing() {
+		boolean changes = false;
+		int since = since(Technique.XYZ_WING);
+
+		for (int cell = 0; cell < points.length; cell++) {
+			long pivot = points[cell].getMask();
+			if (Long.bitCount(pivot) != 3 || !changedAround(cell, since))
+				continue;
+
+			int[] peers = index.getPeers(cell);
+			for (int i = 0; i < peers.length; i++) {
+				long first = points[peers[i]].getMask();
+				if (Long.bitCount(first) != 2 || (first & ~pivot) != 0)
+					continue;
+				for (int j = i + 1; j < peers.length; j++) {
+					long second = points[peers[j]].getMask();
+					if (Long.bitCount(second) != 2 || (first | second) != pivot)
+						continue;
+					if (discardSeenByAll(cell, peers[i], peers[j], Point.lowestNumber(first & second))) {
+						changes = true;
+						if (stepping)
+							return base(cell, peers[i], peers[j]);
+					}
+				}
 			}
+		}
 
-		});
+		return changes;
+	}
 
-		return changes.get();
+	/**
+	 * @param cell position of the point
+	 * @param since stamp of the last run of a technique
+	 * @return true if a house of the point changed after that run
+	 */
+	private boolean changedAround(int cell, int since) {
+		return changedSince(index.rowOf(cell), since)
+				|| changedSince(size + index.colOf(cell), since)
+				|| changedSince(2 * size + index.quadrantOf(cell), since);
 	}
 
 	/**
-	 * If we find that a row can only contain a number "n" in two cells
-	 * and also another row that has the same condition in the same cols,
-	 * all the other "n" possibilities of the column are discarded
+	 * Discards the number from every point that sees the three points,
+	 * the same point can be given twice
+	 * @return true if possibilities were discarded
+	 */
+	private boolean discardSeenByAll(int a, int b, int c, int number) {
+		boolean changes = false;
+		for (int peer : index.getPeers(a)) {
+			if (peer != b && peer != c && index.sees(peer, b) && index.sees(peer, c) && discard(peer, number))
+				changes = true;
+		}
+		return changes;
+	}
+
+	/**
+	 * If we find that a number "n" can only be in the same k columns of k rows,
+	 * all the other "n" possibilities of those columns are discarded. The same
+	 * is done swapping rows and columns, for every number and for k from 2
+	 * (X-Wing) to MAX_FISH, 3 is a Swordfish and 4 a Jellyfish.
+	 * Only runs if a row or column changed since the last run
 	 * @return true if possibilities were discarded
 	 */
 	private boolean discardFromXWing() {
-		AtomicBoolean changes = new AtomicBoolean(false);
-		for (int i = 0; i < size; i++) {
-			Map<Integer, List<Point>> row = findRowXWing(i);
-			if (row == null)
-				continue;
-			Integer key = (Integer) row.keySet().toArray()[0];
+		int since = since(Technique.X_WING);
+		boolean changed = false;
+		for (int house = 0; house < 2 * size && !changed; house++)
+			changed = changedSince(house, since);
+		if (!changed)
+			return false;
+
+		boolean changes = false;
+		for (int number = 1; number <= size && !(stepping && changes); number++) {
+			changes |= findFish(number, true);
+			if (!(stepping && changes))
+				changes |= findFish(number, false);
+		}
+		return changes;
+	}
 
-			Point a = row.get(key).get(0);
-			Point b = row.get(key).get(1);
-			List<Point> mirror_index = getRowXWing(i + 1, key, a, b);
-			if (mirror_index == null)
-				continue;
+	/**
+	 * Collects the positions of the number in every row, or column, and tries
+	 * every combination of them as base lines. Lines where the number is
+	 * already placed are left out, they only repeat the fish found without them
+	 * @param number number to check
+	 * @param rows true to use rows as base lines, false to use columns
+	 * @return true if possibilities were discarded
+	 */
+	private boolean findFish(int number, boolean rows) {
+		long bit = Point.bit(number);
+		fishBases = 0;
+		for (int line = 0; line < size; line++) {
+			int[] cells = rows ? index.getRow(line) : index.getCol(line);
+			long positions = 0;
+			boolean placed = false;
+			for (int i = 0; i < size; i++) {
+				long mask = points[cells[i]].getMask();
+				if ((mask & bit) != 0) {
+					positions |= 1L << i;
+					placed |= mask == bit;
+				}
+			}
+			int count = Long.bitCount(positions);
+			if (!placed && count > 0 && count <= MAX_FISH) {
+				fishLines[fishBases] = line;
+				fishPositions[fishBases++] = positions;
+			}
+		}
+
+		boolean changes = false;
+		for (int k = 2; k <= MAX_FISH && k <= fishBases && 2 * k <= size && !(stepping && changes); k++)
+			changes |= findFish(number, rows, k, 0, 0, 0, 0);
+		return changes;
+	}
 
-			points.stream()
-					.filter(point -> point.getCol() == a.getCol() || point.getCol() == b.getCol())
-					.filter(point -> point.containsPossibility(key))
-					.filter(point -> !point.equals(a) && !point.equals(b))
-					.filter(point -> !mirror_index.contains(point))
-					.forEach(point -> {
-						if (point.discardPossibilities(key))
-							changes.set(true);
-					});
+	/**
+	 * @param k amount of base lines of the fish
+	 * @param start first candidate base line to add
+	 * @param depth amount of base lines already chosen
+	 * @param lines chosen base lines, one bit per line
+	 * @param cover union of the positions of the chosen base lines
+	 * @return true if possibilities were discarded
+	 */
+	private boolean findFish(int number, boolean rows, int k, int start, int depth, long lines, long cover) {
+		if (depth == k)
+			return Long.bitCount(cover) == k && discardFish(number, rows, lines, cover);
+
+		boolean changes = false;
+		for (int base = start; base <= fishBases - (k - depth) && !(stepping && changes); base++) {
+			long union = cover | fishPositions[base];
+			if (Long.bitCount(union) > k)
+				continue;
+			changes |= findFish(number, rows, k, base + 1, depth + 1, lines | 1L << fishLines[base], union);
 		}
+		return changes;
+	}
 
-		return changes.get();
+	/**
+	 * Discards the number from the cover lines, except from the base lines
+	 * @param lines base lines, one bit per line
+	 * @param cover cover lines, one bit per line
+	 * @return true if possibilities were discarded
+	 */
+	private boolean discardFish(int number, boolean rows, long lines, long cover) {
+		boolean changes = false;
+		for (long left = cover; left != 0; left &= left - 1) {
+			int[] cells = rows ? index.getCol(Long.numberOfTrailingZeros(left)) : index.getRow(Long.numberOfTrailingZeros(left));
+			for (int line = 0; line < size; line++) {
+				if ((lines & 1L << line) == 0 && discard(cells[line], number))
+					changes = true;
+			}
+		}
+		if (changes)
+			runSize = Math.max(runSize, Long.bitCount(lines));
+		if (stepping && changes) {
+			for (; lines != 0; lines &= lines - 1) {
+				int[] cells = rows ? index.getRow(Long.numberOfTrailingZeros(lines)) : index.getCol(Long.numberOfTrailingZeros(lines));
+				for (long positions = cover; positions != 0; positions &= positions - 1) {
+					int cell = cells[Long.numberOfTrailingZeros(positions)];
+					if ((points[cell].getMask() & Point.bit(number)) != 0)
+						base(cell);
+				}
+			}
+		}
+		return changes;
 	}
 
 	/**
-	 * Finds if the row match the conditions to apply X-Wing technique
-	 * @param row row to check
-	 * @return the row if it matches the condition, null otherwise
+	 * If k points of a house can only contain the same k numbers, those
+	 * numbers are discarded from the other points of the house.
+	 * Checks pairs to MAX_SUBSET, only in the houses changed since the last run
+	 * @return true if possibilities were discarded
 	 */
-	private Map<Integer, List<Point>> findRowXWing(int row) {
-		List<Point> wing = getRowMissingPoints(row);
-		for (int i = 0; i < size; ++i) {
-			int possibility = ++i;
-			List<Point> x = wing.stream().filter(point -> point.containsPossibility(possibility))
-					.collect(Collectors.toList());
-			if (x.size() == 2) {
-				Map<Integer, List<Point>> x_wing = new HashMap<>(1);
-				x_wing.put(i, x);
-				return x_wing;
+	private boolean spotNakedSubsets() {
+		int since = since(Technique.NAKED_SUBSETS);
+		boolean changes = false;
+		int[][] houses = index.getHouses();
+		for (int house = 0; house < houses.length && !contradiction; house++) {
+			if (!changedSince(house, since) || collectUnsolved(houses[house]) < 3)
+				continue;
+			subsetItems = 0;
+			for (int slot = 0; slot < subsetUnsolved; slot++) {
+				if (Long.bitCount(subsetMasks[slot]) <= MAX_SUBSET)
+					addSubsetItem(subsetMasks[slot], slot);
 			}
+			changes |= findSubsets(true);
+			if (stepping && changes)
+				return true;
 		}
-		return null;
+		return changes;
 	}
 
 	/**
-	 * search for a mirror row in x-wing technique
-	 * @param row row to start checking
-	 * @return the mirror row index if exists, null otherwise
+	 * If k numbers can only be in the same k points of a house, all the
+	 * other numbers are discarded from those points.
+	 * Checks pairs to MAX_SUBSET, only in the houses changed since the last run
+	 * @return true if possibilities were discarded
 	 */
-	private List<Point> getRowXWing(int row, int number, Point a, Point b) {
-		for (int i = row; i < size; ++i) {
-			List<Point> mirror = getRowMissingPoints(row);
-			List<Point> x = mirror.stream()
-					.filter(point -> point.containsPossibility(number))
-					.collect(Collectors.toList());
-			if (x.size() == 2) {
-				return x;
+	private boolean spotHiddenSubsets() {
+		int since = since(Technique.HIDDEN_SUBSETS);
+		boolean changes = false;
+		int[][] houses = index.getHouses();
+		for (int house = 0; house < houses.length && !contradiction; house++) {
+			if (!changedSince(house, since) || collectUnsolved(houses[house]) < 3)
+				continue;
+			long numbers = 0;
+			for (int slot = 0; slot < subsetUnsolved; slot++)
+				numbers |= subsetMasks[slot];
+			numbers &= ~subsetSolved;
+			subsetItems = 0;
+			for (; numbers != 0; numbers &= numbers - 1) {
+				long bit = Long.lowestOneBit(numbers);
+				long positions = 0;
+				for (int slot = 0; slot < subsetUnsolved; slot++) {
+					if ((subsetMasks[slot] & bit) != 0)
+						positions |= 1L << slot;
+				}
+				if (Long.bitCount(positions) <= MAX_SUBSET)
+					addSubsetItem(positions, Long.numberOfTrailingZeros(bit));
 			}
+			changes |= findSubsets(false);
+			if (stepping && changes)
+				return true;
+		}
+		return changes;
+	}
+
+	/**
+	 * Copies the unsolved points of the house to subsetCells and subsetMasks,
+	 * and the numbers of the solved ones to subsetSolved, points solved by
+	 * this run may still have their number in the possibilities of their peers
+	 * @param house points of the house
+	 * @return amount of unsolved points
+	 */
+	private int collectUnsolved(int[] house) {
+		subsetUnsolved = 0;
+		subsetSolved = 0;
+		for (int cell : house) {
+			long mask = points[cell].getMask();
+			if (Long.bitCount(mask) > 1) {
+				subsetCells[subsetUnsolved] = cell;
+				subsetMasks[subsetUnsolved++] = mask;
+			} else
+				subsetSolved |= mask;
+		}
+		return subsetUnsolved;
+	}
+
+	private void addSubsetItem(long mask, int key) {
+		subsetItemMasks[subsetItems] = mask;
+		subsetKeys[subsetItems++] = key;
+	}
+
+	/**
+	 * Tries every combination of k items, from pairs to MAX_SUBSET, a subset is
+	 * only valid while it leaves at least one unsolved point out
+	 * @param naked true if the items are points, false if they are numbers
+	 * @return true if possibilities were discarded
+	 */
+	private boolean findSubsets(boolean naked) {
+		boolean changes = false;
+		for (int k = 2; k <= MAX_SUBSET && k <= subsetItems && k < subsetUnsolved && !(stepping && changes); k++)
+			changes |= findSubset(naked, k, 0, 0, 0, 0);
+		return changes;
+	}
+
+	/**
+	 * @param k size of the subset
+	 * @param start first candidate item to add
+	 * @param depth amount of items already chosen
+	 * @param items chosen items, one bit per item
+	 * @param union union of the masks of the chosen items
+	 * @return true if possibilities were discarded
+	 */
+	private boolean findSubset(boolean naked, int k, int start, int depth, long items, long union) {
+		if (depth == k)
+			return Long.bitCount(union) == k && discardSubset(naked, items, union);
+
+		boolean changes = false;
+		for (int item = start; item <= subsetItems - (k - depth) && !(stepping && changes); item++) {
+			long mask = union | subsetItemMasks[item];
+			if (Long.bitCount(mask) > k)
+				continue;
+			changes |= findSubset(naked, k, item + 1, depth + 1, items | 1L << item, mask);
 		}
-		return null;
+		return changes;
 	}
 
 	/**
-	 * @param row row to find
-	 * @return a list with the points with more than one possibility
+	 * A naked subset discards its numbers from the points out of it,
+	 * a hidden subset discards the other numbers from its points
+	 * @param items items of the subset, one bit per item
+	 * @param union numbers of a naked subset, positions of a hidden one
+	 * @return true if possibilities were discarded
 	 */
-	private List<Point> getRowMissingPoints(int row) {
-		return points.stream()
-				.filter(point -> point.getRow() == row)
-				.filter(point -> point.getCurrentPossibilities() > 1)
-				.collect(Collectors.toList());
+	private boolean discardSubset(boolean naked, long items, long union) {
+		int k = Long.bitCount(items);
+		long keys = 0;
+		for (; items != 0; items &= items - 1)
+			keys |= 1L << subsetKeys[Long.numberOfTrailingZeros(items)];
+
+		boolean changes = false;
+		if (naked) {
+			for (int slot = 0; slot < subsetUnsolved; slot++) {
+				if ((keys & 1L << slot) == 0 && discardMask(subsetCells[slot], union))
+					changes = true;
+			}
+		} else {
+			for (long slots = union; slots != 0; slots &= slots - 1) {
+				if (discardMask(subsetCells[Long.numberOfTrailingZeros(slots)], ~keys))
+					changes = true;
+			}
+		}
+		if (changes)
+			runSize = Math.max(runSize, k);
+		if (stepping && changes) {
+			for (long slots = naked ? keys : union; slots != 0; slots &= slots - 1)
+				base(subsetCells[Long.numberOfTrailingZeros(slots)]);
+		}
+		return changes;
 	}
 
 	/**
-	 * If we find that a row can only contain a two numbers "x" "y" in two cells
-	 * of the same house, all the other "n" possibilities of the house are discarded
+	 * For every number, the points joined by strong links are coloured
+	 * alternating two colours, one of them holds the number. If two points of
+	 * the same colour see each other that colour is discarded, and any other
+	 * point that sees both colours discards the number
 	 * @return true if possibilities were discarded
 	 */
-	private boolean spotHiddenPairs() {
-		AtomicBoolean changes = new AtomicBoolean(false);
-
-		IntStream.rangeClosed(1, size).forEach(number -> {
-			List<Point> number_positions = points.stream()
-					.filter(point -> !point.uniquePossibility())
-					.filter(point -> point.containsPossibility(number))
-					.collect(Collectors.toList());
-
-			number_positions.forEach(point -> {
-
-				HashMap<String, List<Point>> houses = mapFilters(number_positions, point);
-
-				houses.forEach((key, house) -> {
-					if (house.size() == 2) {
-						List<Integer> values = new ArrayList<>();
-						house.forEach(p -> values.addAll(p.getPossibilities()));
-						values.removeIf(n -> n == number);
-						values.removeIf(n -> Collections.frequency(values, n) != 2);
-						boolean hidden_pair;
-						if (values.size() == 2) {
-							hidden_pair = points.stream()
-									.filter(p -> filter_selector.apply(key).apply(p, point))
-									.filter(p -> p.containsPossibility(values.get(0)))
-									.count() == 2;
-						} else hidden_pair = false;
-
-						if (hidden_pair) {
-							house.forEach(p -> {
-								if (p.setPossibilities(number, values.get(0)))
-									changes.set(true);
-							});
-						}
+	private boolean discardFromSimpleColouring() {
+		int since = since(Technique.SIMPLE_COLOURING);
+		if (!changedSince(since))
+			return false;
+		refreshLinks();
+
+		boolean changes = false;
+		for (int number = 1; number <= size && !contradiction; number++) {
+			long bit = Point.bit(number);
+			Arrays.fill(colours, 0);
+			int colour = 1;
+			for (int cell = 0; cell < points.length; cell++) {
+				if (colours[cell] != 0 || (points[cell].getMask() & bit) == 0)
+					continue;
+				int count = colourChain(cell, number, colour);
+				if (count > 1 && discardColours(number, colour, count)) {
+					changes = true;
+					if (stepping) {
+						for (int i = 0; i < count; i++)
+							base(colourQueue[i]);
+						return true;
 					}
-				});
-			});
-		});
+				}
+				colour += 2;
+			}
+		}
+		return changes;
+	}
 
-		return changes.get();
+	/**
+	 * Colours the points linked to the first one, leaving them in colourQueue
+	 * @param cell first point
+	 * @param colour colour of the first point, the other one is colour + 1
+	 * @return amount of points coloured
+	 */
+	private int colourChain(int cell, int number, int colour) {
+		int head = 0;
+		int tail = 0;
+		colours[cell] = colour;
+		colourQueue[tail++] = cell;
+		while (head < tail) {
+			int point = colourQueue[head++];
+			int opposite = colours[point] == colour ? colour + 1 : colour;
+			for (int house : houses(point)) {
+				int partner = links.getPartner(house, number, point);
+				if (partner != -1 && colours[partner] == 0) {
+					colours[partner] = opposite;
+					colourQueue[tail++] = partner;
+				}
+			}
+		}
+		return tail;
 	}
 
 	/**
-	 * If we find that a row contain three numbers "x" "y" "z" in three cells
-	 * all the other "x" "y" "z" possibilities of the house are discarded
+	 * @param colour first colour of the chain in colourQueue
+	 * @param count amount of points of the chain
 	 * @return true if possibilities were discarded
 	 */
-	private boolean spotNakedTriplets() {
-		AtomicBoolean changes = new AtomicBoolean(false);
+	private boolean discardColours(int number, int colour, int count) {
+		for (int i = 0; i < count; i++) {
+			for (int j = i + 1; j < count; j++) {
+				int a = colourQueue[i];
+				int b = colourQueue[j];
+				if (colours[a] == colours[b] && index.sees(a, b))
+					return discardColour(number, colours[a], count);
+			}
+		}
 
-		List<Point> triplets = points.stream()
-				.filter(point -> point.getCurrentPossibilities() <= 3)
-				.collect(Collectors.toList());
+		boolean changes = false;
+		long bit = Point.bit(number);
+		for (int cell = 0; cell < points.length; cell++) {
+			if ((points[cell].getMask() & bit) == 0 || colours[cell] == colour || colours[cell] == colour + 1)
+				continue;
+			boolean first = false;
+			boolean second = false;
+			for (int i = 0; i < count && !(first && second); i++) {
+				int point = colourQueue[i];
+				if (index.sees(cell, point)) {
+					first |= colours[point] == colour;
+					second |= colours[point] == colour + 1;
+				}
+			}
+			if (first && second && discard(cell, number))
+				changes = true;
+		}
+		return changes;
+	}
 
-		triplets.stream().filter(point -> !point.uniquePossibility()).forEach(point -> {
-			List<Integer> number = new ArrayList<>(point.getPossibilities());
-			int x = number.get(0);
-			int y = number.get(1);
-			AtomicInteger z = new AtomicInteger(0);
+	private boolean discardColour(int number, int colour, int count) {
+		boolean changes = false;
+		for (int i = 0; i < count; i++) {
+			if (colours[colourQueue[i]] == colour && discard(colourQueue[i], number))
+				changes = true;
+		}
+		return changes;
+	}
 
-			HashMap<String, List<Point>> houses = mapFilters(triplets, point);
+	/**
+	 * @return the houses of the point, its row, column and quadrant
+	 */
+	private int[] houses(int cell) {
+		houseScratch[0] = index.rowOf(cell);
+		houseScratch[1] = size + index.colOf(cell);
+		houseScratch[2] = 2 * size + index.quadrantOf(cell);
+		return houseScratch;
+	}
 
-			houses.forEach((key, house) -> {
+	/**
+	 * Alternating inference chains: assuming a possibility is false, strong
+	 * links make other possibilities true and weak links make those false,
+	 * following at most MAX_CHAIN implications breadth first. Either the first
+	 * possibility or any possibility made true holds, so every possibility
+	 * weakly linked to both is discarded, and if the first one is made true
+	 * it's the number of its point. Stops at the first possibility whose
+	 * chains discard something, so cheaper techniques are tried again
+	 * @return true if possibilities were discarded
+	 */
+	private boolean discardFromAlternatingChains() {
+		int since = since(Technique.ALTERNATING_CHAINS);
+		if (!changedSince(since))
+			return false;
+		refreshLinks();
+		if (chainVisited == null) {
+			chainVisited = new int[points.length * size * 2];
+			chainQueue = new int[points.length * size * 2];
+			chainSeen = new int[points.length * size];
+			chainLinks = new int[4 * size];
+		}
 
-				List<Integer> candidates = new ArrayList<>();
-				List<Point> pts = house.stream()
-						.filter(p -> p.containsPossibility(x) || p.containsPossibility(y))
-						.filter(p -> {
-							if (p.getCurrentPossibilities() == 3)
-								return p.containsPossibility(x) && p.containsPossibility(y);
-							return true;
-						}).collect(Collectors.toList());
-
-				pts.forEach(p -> candidates.addAll(p.getPossibilities()));
-
-				Set<Integer> z_candidates = candidates.stream()
-						.filter(n -> Collections.frequency(candidates, n) >= 2)
-						.filter(n -> n != x)
-						.filter(n -> n != y)
-						.collect(Collectors.toSet());
-
-				boolean valid_triplet = false;
-
-				if (z_candidates.size() == 1) {
-					z.set((int) z_candidates.toArray()[0]);
-					HashMap<Integer, Integer> counter =  new HashMap<>(3);
-					List<Point> temp = triplets.stream()
-							.filter(p -> p.containsOnlyThisPossibilities(x, y, z.get()))
-							.filter(p -> filter_selector.apply(key).apply(p, point))
-							.collect(Collectors.toList());
-					temp.forEach(p -> {
-								p.getPossibilities().forEach(possibility -> {
-									if (counter.containsKey(possibility))
-										counter.put(possibility, counter.get(possibility) + 1);
-									else
-										counter.put(possibility, 1);
-								});
-							});
-
-					valid_triplet = counter.values().stream().allMatch(n -> n >= 2) && temp.size() == 3;
-				}
-				if (valid_triplet) {
-					List<Point> removal = points.stream()
-							.filter(p -> !p.uniquePossibility())
-							.filter(p -> filter_selector.apply(key).apply(p, point))
-							.filter(p -> !p.containsOnlyThisPossibilities(x, y, z.get()))
-							.collect(Collectors.toList());
-
-					System.out.println(key + " Removing (" + x + ", " + y + ", " + z+") from " + removal);
-					System.out.println(triplets.stream()
-							.filter(p -> p.containsOnlyThisPossibilities(x, y, z.get()))
-							.filter(p -> filter_selector.apply(key).apply(p, point)).collect(Collectors.toSet()));
-
-					removal.forEach(p -> {
-						bugCatcher("NakedTriplets (" + x + ", " + y + ", " + z.get() + ")", x, p);
-						bugCatcher("NakedTriplets (" + x + ", " + y + ", " + z.get() + ")", y, p);
-						bugCatcher("NakedTriplets (" + x + ", " + y + ", " + z.get() + ")", z.get(), p);
-						if (p.discardPossibilities(x, y, z.get()))
-							changes.set(true);
-					});
+		for (int cell = 0; cell < points.length; cell++) {
+			long mask = points[cell].getMask();
+			if (Long.bitCount(mask) < 2)
+				continue;
+			for (; mask != 0; mask &= mask - 1) {
+				if (followChains(cell * size + Long.numberOfTrailingZeros(mask))) {
+					if (stepping)
+						base(cell);
+					return true;
 				}
-			});
-
-		});
+			}
+		}
+		return false;
+	}
 
-		return changes.get();
+	/**
+	 * @param start possibility assumed false
+	 * @return true if possibilities were discarded
+	 */
+	private boolean followChains(int start) {
+		if (chainRun == Integer.MAX_VALUE) {
+			Arrays.fill(chainVisited, 0);
+			Arrays.fill(chainSeen, 0);
+			chainRun = 0;
+		}
+		chainRun++;
+		int seen = weakLinks(start);
+		for (int i = 0; i < seen; i++)
+			chainSeen[chainLinks[i]] = chainRun;
+
+		boolean changes = false;
+		int head = 0;
+		int tail = 0;
+		chainVisited[start * 2] = chainRun;
+		chainQueue[tail++] = start * 2;
+		for (int depth = 0; depth < MAX_CHAIN && head < tail && !contradiction; depth++) {
+			int level = tail;
+			while (head < level) {
+				int state = chainQueue[head++];
+				int node = state >> 1;
+				boolean on = (state & 1) != 0;
+				if (on && node == start)
+					return setUnique(start / size, start % size + 1) || changes;
+
+				int count = on ? weakLinks(node) : strongLinks(node);
+				for (int i = 0; i < count; i++) {
+					int next = chainLinks[i];
+					if (on && chainSeen[next] == chainRun && next != start
+							&& discard(next / size, next % size + 1)) {
+						changes = true;
+						if (stepping)
+							return true;
+					}
+					int nextState = next * 2 + (on ? 0 : 1);
+					if (chainVisited[nextState] != chainRun) {
+						chainVisited[nextState] = chainRun;
+						chainQueue[tail++] = nextState;
+					}
+				}
+			}
+		}
+		return changes;
 	}
 
 	/**
-	 * @param set List of Points to filter by house
-	 * @param point Reference point
-	 * @return a map with subsets of each house
+	 * @param node possibility, cell * size + number - 1
+	 * @return amount of possibilities left in chainLinks that are true if the node is false
 	 */
-	private HashMap<String, List<Point>> mapFilters(List<Point> set, Point point) {
-		HashMap<String, List<Point>> houses = new HashMap<>();
+	private int strongLinks(int node) {
+		int cell = node / size;
+		int number = node % size + 1;
+		int count = 0;
+		for (int house : houses(cell)) {
+			int partner = links.getPartner(house, number, cell);
+			if (partner != -1 && points[partner].containsPossibility(number))
+				chainLinks[count++] = partner * size + number - 1;
+		}
+		long mask = points[cell].getMask();
+		if (Long.bitCount(mask) == 2 && (mask & Point.bit(number)) != 0)
+			chainLinks[count++] = cell * size + Long.numberOfTrailingZeros(mask & ~Point.bit(number));
+		return count;
+	}
 
-		houses.put("col", set.stream()
-				.filter(p -> columnFilter.apply(p, point))
-				.filter(p -> !p.uniquePossibility())
-				.collect(Collectors.toList())
-		);
-		houses.put("row", set.stream()
-				.filter(p -> rowFilter.apply(p, point))
-				.filter(p -> !p.uniquePossibility())
-				.collect(Collectors.toList())
-		);
-		houses.put("quadrant", set.stream()
-				.filter(p -> quadrantFilter.apply(p, point))
-				.filter(p -> !p.uniquePossibility())
-				.collect(Collectors.toList())
-		);
-		return houses;
+	/**
+	 * @param node possibility, cell * size + number - 1
+	 * @return amount of possibilities left in chainLinks that are false if the node is true
+	 */
+	private int weakLinks(int node) {
+		int cell = node / size;
+		int number = node % size + 1;
+		int count = 0;
+		for (long mask = points[cell].getMask() & ~Point.bit(number); mask != 0; mask &= mask - 1)
+			chainLinks[count++] = cell * size + Long.numberOfTrailingZeros(mask);
+		for (int peer : index.getPeers(cell)) {
+			if (points[peer].containsPossibility(number))
+				chainLinks[count++] = peer * size + number - 1;
+		}
+		return count;
 	}
 
 	/**
 	 * Sets all points with only one possibility
 	 */
 	private void updateBoard() {
-		points.stream()
-				.filter(Point::uniquePossibility)
-				.forEach(point ->
-					board[point.getRow()][point.getCol()] = point.getUniquePossibility()
-				);
+		for (Point point : points) {
+			if (point.uniquePossibility())
+				board[point.getRow()][point.getCol()] = point.getUniquePossibility();
+		}
 	}
 
 	/**
@@ -528,11 +1648,11 @@ public class SudokuBoard {
 		updateBoard();
 		StringBuilder stringBuilder = new StringBuilder(board.length * ((board.length + 1) * 4));
 		for (int i = 0; i < board.length; i++) {
-			if(i % 3 == 0)
+			if(i % index.getN() == 0)
 				stringBuilder.append("-".repeat(board.length * 5))
 						.append('\n');
 			for (int j = 0; j < board.length; j++) {
-				if(j % 3 == 0)
+				if(j % index.getN() == 0)
 					stringBuilder.append("|\t");
 				stringBuilder.append(board[i][j] == null ? "-" : board[i][j])
 						.append('\t');
@@ -542,81 +1662,5 @@ public class SudokuBoard {
 		System.out.println(stringBuilder);
 	}
 
-	/**
-	 * @param method Method to test
-	 * @param number2discard the number that is goind to be discarded
-	 * @param point point from where we are going to remove that possibility
-	 */
-	private void bugCatcher(String method, Integer number2discard, Point point) {
-		if (stop || Objects.isNull(Main.solution))
-			return;
-		if (Objects.equals(Main.solution[point.getRow()][point.getCol()], number2discard)) {
-			System.out.print(method + " does not work");
-			System.out.println("\tDiscarding " + number2discard + " from (" + point.getRow() + ", " + point.getCol() + ") = " + Main.solution[point.getRow()][point.getCol()]);
-			stop = true;
-			printBoard();
-		}
-	}
-	private void bugCatcher(Point point, String method, Integer uniquePossibility) {
-		if (stop || Objects.isNull(Main.solution))
-			return;
-		if (!Objects.equals(Main.solution[point.getRow()][point.getCol()], uniquePossibility)) {
-			System.out.print(method + " does not work");
-			System.out.println("\tSetting " + uniquePossibility + " as (" + point.getRow() + ", " + point.getCol() + ") = " + Main.solution[point.getRow()][point.getCol()]);
-			stop = true;
-		}
-	}
-
 }
 
-/*
-private boolean spotHiddenTriplets() {
-		AtomicBoolean changes = new AtomicBoolean(false);
-		IntStream.range(0, size).forEach(i -> {
-			List<Point> house = points.stream()
-					.filter(point -> point.getQuadrant() == i)
-					.filter(point -> point.getCurrentPossibilities() > 1)
-					.collect(Collectors.toList());
-
-			List<Point> clone = new ArrayList<>(house.size());
-
-			try {
-				for (Point point : house)
-					clone.add(point.clone());
-			} catch (CloneNotSupportedException e ) {
-				return;
-			}
-
-
-//			if (house.size() < HIDDEN_TRIPLETS_MIN_UNKNOWNS)
-//				return;
-
-			SortedMap<Integer, Integer> counter = new TreeMap<>();
-			house.forEach(point -> {
-				point.getPossibilities().forEach(possibility -> {
-					if (counter.containsKey(possibility))
-						counter.put(possibility, counter.get(possibility) + 1);
-					else counter.put(possibility, 1);
-				});
-			});
-
-			IntStream.rangeClosed(1, size).forEach(n -> {
-				if (counter.containsKey(n) && counter.get(n) > TRIPLETS_MAX_APPEARANCES)
-					clone.stream()
-							.filter(point -> point.containsPossibility(n))
-							.forEach(point -> point.discardPossibilities(n));
-			});
-
-			if (counter.size() < TRIPLETS_MAX_APPEARANCES)
-				return;
-
-			System.out.println("***************************************");
-			System.out.println("Quadrant " + i);
-			counter.forEach((k, v) -> System.out.println(k + " : " + v));
-			System.out.println("***************************************");
-
-		});
-
-		return changes.get();
-	}
- */
\ No newline at end of file
@@ -0,0 +1,432 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Backtracking search used when the techniques make no more progress.
+ * It always branches on the empty cell with fewer possibilities, or on a
+ * number that only fits in one cell of a house, and keeps one mask of used
+ * numbers per house, so the memory needed is bounded by the size of the
+ * board and does not grow with the number of guesses. The empty cells where
+ * each number fits are counted per house as numbers are placed and removed,
+ * so a node finds the hidden singles without rescanning the houses.
+ * An instance can be reused for any amount of boards of the same size.
+ * It can also count the solutions of a board, adding them to a counter that
+ * can be shared by several searches, all of them stopping once it reaches
+ * the limit, which with a limit of one splits a solve between searches.
+ */
+public class SudokuSearch {
+
+	/*
+		Guesses taken at once from a budget shared between searches
+	 */
+	private static final long NODE_CHUNK = 1024;
+
+	private final BoardIndex index;
+	private final long[] masks;
+	/*
+		Number of every cell, 0 while the cell is empty
+	 */
+	private final int[] values;
+	private final long[] rowUsed;
+	private final long[] colUsed;
+	private final long[] quadrantUsed;
+	/*
+		Numbers that fit in each empty cell, 0 for the placed ones and the one being guessed
+	 */
+	private final long[] fitting;
+	/*
+		Empty cells of every house where each number fits, house * size + number - 1
+	 */
+	private final int[] fits;
+	/*
+		Numbers of every house that fit in no empty cell and in a single one
+	 */
+	private final long[] fitsNone;
+	private final long[] fitsOnce;
+	/*
+		Peers that stopped fitting the number guessed at every depth, one bit per peer
+	 */
+	private final long[] unfit;
+	private final int unfitWords;
+	/*
+		Cells still empty, the ones before the current depth are already guessed
+	 */
+	private final int[] empty;
+	/*
+		Position of every empty cell in empty
+	 */
+	private final int[] position;
+	private int emptyCount = 0;
+	private final long nodeLimit;
+	/*
+		Node limit of the current run, at most nodeLimit. With a shared budget,
+		the guesses reserved from it so far
+	 */
+	private long runLimit;
+	/*
+		null unless the run shares a budget of guesses with other searches
+	 */
+	private AtomicLong budget;
+	private long nodes = 0;
+	private boolean limitReached = false;
+	/*
+		null unless counting solutions
+	 */
+	private AtomicLong solutions;
+	private long solutionLimit;
+	/*
+		Whether this search found the solution that made the counter reach the limit
+	 */
+	private boolean reachedLimit = false;
+
+	/**
+	 * @param index index of the boards to solve
+	 */
+	public SudokuSearch(BoardIndex index) {
+		this(index, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param index index of the boards to solve
+	 * @param nodeLimit maximum amount of guesses per solve before giving up
+	 */
+	public SudokuSearch(BoardIndex index, long nodeLimit) {
+		this.index = index;
+		int size = index.getSize();
+		this.masks = new long[index.getCells()];
+		this.values = new int[index.getCells()];
+		this.rowUsed = new long[size];
+		this.colUsed = new long[size];
+		this.quadrantUsed = new long[size];
+		this.fitting = new long[index.getCells()];
+		this.fits = new int[3 * size * size];
+		this.fitsNone = new long[3 * size];
+		this.fitsOnce = new long[3 * size];
+		this.unfitWords = (index.getPeers(0).length + Long.SIZE - 1) / Long.SIZE;
+		this.unfit = new long[index.getCells() * unfitWords];
+		this.empty = new int[index.getCells()];
+		this.position = new int[index.getCells()];
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * @param masks possibilities of every cell, one bit per number, left untouched
+	 * @return the number of every cell, null if there's no solution
+	 * or the node limit was reached. The array is reused by the next solve
+	 */
+	public int[] solve(long[] masks) {
+		solutions = null;
+		if (!load(masks, nodeLimit))
+			return null;
+		return search(0) ? values : null;
+	}
+
+	/**
+	 * Searches a solution of a subtree, stopping as soon as a search sharing
+	 * the counter finds one
+	 * @param masks possibilities of every cell, one bit per number, left untouched
+	 * @param solutions counter of solutions, shared by the searches of every subtree
+	 * @param budget guesses left to every subtree, taken NODE_CHUNK at a time
+	 * and the ones not used given back, so together they never take more
+	 * @return the number of every cell if this search found the first solution,
+	 * null otherwise. The array is reused by the next solve
+	 */
+	public int[] solve(long[] masks, AtomicLong solutions, AtomicLong budget) {
+		this.solutions = solutions;
+		this.solutionLimit = 1;
+		this.budget = budget;
+		if (load(masks, 0))
+			search(0);
+		if (runLimit > nodes)
+			budget.addAndGet(runLimit - nodes);
+		this.solutions = null;
+		this.budget = null;
+		return reachedLimit ? values : null;
+	}
+
+	/**
+	 * Adds the solutions of the board to the counter, stopping when it
+	 * reaches the limit, even if the solutions were found by another search
+	 * @param masks possibilities of every cell, one bit per number, left untouched
+	 * @param limit amount of solutions to stop at
+	 * @param solutions counter of solutions, may be shared between searches
+	 */
+	public void count(long[] masks, long limit, AtomicLong solutions) {
+		this.solutions = solutions;
+		this.solutionLimit = limit;
+		if (load(masks, nodeLimit))
+			search(0);
+		this.solutions = null;
+	}
+
+	/**
+	 * @param nodeLimit node limit of the run
+	 * @return false if two solved cells of the same house hold the same number
+	 */
+	private boolean load(long[] masks, long nodeLimit) {
+		System.arraycopy(masks, 0, this.masks, 0, this.masks.length);
+		Arrays.fill(values, 0);
+		Arrays.fill(rowUsed, 0);
+		Arrays.fill(colUsed, 0);
+		Arrays.fill(quadrantUsed, 0);
+		emptyCount = 0;
+		runLimit = nodeLimit;
+		nodes = 0;
+		limitReached = false;
+		reachedLimit = false;
+		if (!placeSolved())
+			return false;
+		countFits();
+		return true;
+	}
+
+	/**
+	 * Counts the empty cells where every number fits, once the solved ones are placed
+	 */
+	private void countFits() {
+		int size = index.getSize();
+		Arrays.fill(fitting, 0);
+		Arrays.fill(fits, 0);
+		for (int i = 0; i < emptyCount; i++) {
+			int cell = empty[i];
+			fitting[cell] = masks[cell] & ~used(cell);
+			for (long mask = fitting[cell]; mask != 0; mask &= mask - 1) {
+				int number = Long.numberOfTrailingZeros(mask);
+				fits[index.rowOf(cell) * size + number]++;
+				fits[(size + index.colOf(cell)) * size + number]++;
+				fits[(2 * size + index.quadrantOf(cell)) * size + number]++;
+			}
+		}
+		for (int house = 0; house < fitsNone.length; house++) {
+			long none = 0;
+			long once = 0;
+			for (int number = 0; number < size; number++) {
+				if (fits[house * size + number] == 0)
+					none |= 1L << number;
+				else if (fits[house * size + number] == 1)
+					once |= 1L << number;
+			}
+			fitsNone[house] = none;
+			fitsOnce[house] = once;
+		}
+	}
+
+	/**
+	 * Takes more guesses from the shared budget
+	 * @return false if there's no budget or it's spent
+	 */
+	private boolean reserve() {
+		if (budget == null || runLimit >= nodeLimit)
+			return false;
+		long left = budget.getAndAdd(-NODE_CHUNK);
+		long taken = Math.max(0, Math.min(left, NODE_CHUNK));
+		if (taken < NODE_CHUNK)
+			budget.addAndGet(NODE_CHUNK - taken);
+		if (taken == 0)
+			return false;
+		runLimit = Math.min(nodeLimit, runLimit + taken);
+		return true;
+	}
+
+	/**
+	 * @return true if the last solve gave up because of the node limit
+	 */
+	public boolean isLimitReached() {
+		return limitReached;
+	}
+
+	/**
+	 * @return the amount of guesses made
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Places every cell with a unique possibility and collects the empty ones
+	 * @return false if two solved cells of the same house hold the same number
+	 */
+	private boolean placeSolved() {
+		for (int cell = 0; cell < masks.length; cell++) {
+			long mask = masks[cell];
+			if (mask != 0 && (mask & (mask - 1)) == 0) {
+				if ((used(cell) & mask) != 0)
+					return false;
+				place(cell, mask);
+			} else {
+				position[cell] = emptyCount;
+				empty[emptyCount++] = cell;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the search must stop, when solving because a solution
+	 * was found, and when counting because the limit was reached
+	 */
+	private boolean search(int depth) {
+		if (depth == emptyCount) {
+			if (solutions == null)
+				return true;
+			long found = solutions.incrementAndGet();
+			reachedLimit = found == solutionLimit;
+			return found >= solutionLimit;
+		}
+		if (solutions != null && solutions.get() >= solutionLimit)
+			return true;
+		if (++nodes > runLimit && !reserve()) {
+			limitReached = true;
+			return false;
+		}
+
+		int best = depth;
+		long bestMask = 0;
+		int bestCount = Integer.MAX_VALUE;
+		for (int i = depth; i < emptyCount; i++) {
+			long mask = fitting[empty[i]];
+			int count = Long.bitCount(mask);
+			if (count == 0)
+				return false;
+			if (count < bestCount) {
+				best = i;
+				bestMask = mask;
+				bestCount = count;
+				if (count == 1)
+					break;
+			}
+		}
+
+		if (bestCount > 1) {
+			int[][] houses = index.getHouses();
+			for (int house = 0; house < houses.length; house++) {
+				if ((fitsNone[house] & ~houseUsed(house)) != 0)
+					return false;
+				long single = fitsOnce[house];
+				if (single != 0) {
+					bestMask = single & -single;
+					for (int cell : houses[house]) {
+						if ((fitting[cell] & bestMask) != 0)
+							best = position[cell];
+					}
+					break;
+				}
+			}
+		}
+
+		int cell = empty[best];
+		empty[best] = empty[depth];
+		position[empty[best]] = best;
+		empty[depth] = cell;
+		position[cell] = depth;
+
+		long numbers = fitting[cell];
+		fit(cell, numbers, -1);
+		fitting[cell] = 0;
+		for (long mask = bestMask; mask != 0; mask &= mask - 1) {
+			long number = mask & -mask;
+			place(cell, number);
+			unfit(depth, cell, number);
+			if (search(depth + 1))
+				return true;
+			refit(depth, cell, number);
+			remove(cell, number);
+			if (limitReached)
+				return false;
+		}
+		fitting[cell] = numbers;
+		fit(cell, numbers, 1);
+		return false;
+	}
+
+	private long used(int cell) {
+		return rowUsed[index.rowOf(cell)] | colUsed[index.colOf(cell)] | quadrantUsed[index.quadrantOf(cell)];
+	}
+
+	private long houseUsed(int house) {
+		int size = index.getSize();
+		if (house < size)
+			return rowUsed[house];
+		if (house < 2 * size)
+			return colUsed[house - size];
+		return quadrantUsed[house - 2 * size];
+	}
+
+	/**
+	 * No longer counts the peers of the cell guessed at the depth for its number,
+	 * remembering which ones did fit it
+	 */
+	private void unfit(int depth, int cell, long number) {
+		int[] peers = index.getPeers(cell);
+		int start = depth * unfitWords;
+		Arrays.fill(unfit, start, start + unfitWords, 0);
+		for (int i = 0; i < peers.length; i++) {
+			int peer = peers[i];
+			if ((fitting[peer] & number) != 0) {
+				fitting[peer] &= ~number;
+				fit(peer, number, -1);
+				unfit[start + i / Long.SIZE] |= 1L << i;
+			}
+		}
+	}
+
+	/**
+	 * Reverts unfit
+	 */
+	private void refit(int depth, int cell, long number) {
+		int[] peers = index.getPeers(cell);
+		int start = depth * unfitWords;
+		for (int word = 0; word < unfitWords; word++) {
+			for (long mask = unfit[start + word]; mask != 0; mask &= mask - 1) {
+				int peer = peers[word * Long.SIZE + Long.numberOfTrailingZeros(mask)];
+				fitting[peer] |= number;
+				fit(peer, number, 1);
+			}
+		}
+	}
+
+	private void place(int cell, long number) {
+		values[cell] = Point.lowestNumber(number);
+		rowUsed[index.rowOf(cell)] |= number;
+		colUsed[index.colOf(cell)] |= number;
+		quadrantUsed[index.quadrantOf(cell)] |= number;
+	}
+
+	private void remove(int cell, long number) {
+		values[cell] = 0;
+		rowUsed[index.rowOf(cell)] &= ~number;
+		colUsed[index.colOf(cell)] &= ~number;
+		quadrantUsed[index.quadrantOf(cell)] &= ~number;
+	}
+
+	/**
+	 * Adds change to the count of the houses of the cell for every number of the mask
+	 */
+	private void fit(int cell, long numbers, int change) {
+		int size = index.getSize();
+		int row = index.rowOf(cell);
+		int col = size + index.colOf(cell);
+		int quadrant = 2 * size + index.quadrantOf(cell);
+		for (long mask = numbers; mask != 0; mask &= mask - 1) {
+			int number = Long.numberOfTrailingZeros(mask);
+			count(row, number, change);
+			count(col, number, change);
+			count(quadrant, number, change);
+		}
+	}
+
+	private void count(int house, int number, int change) {
+		int fit = fits[house * index.getSize() + number] += change;
+		if (fit > 2)
+			return;
+		long bit = 1L << number;
+		if (fit == 0) {
+			fitsOnce[house] &= ~bit;
+			fitsNone[house] |= bit;
+		} else if (fit == 1) {
+			fitsNone[house] &= ~bit;
+			fitsOnce[house] |= bit;
+		} else
+			fitsOnce[house] &= ~bit;
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * Techniques SudokuBoard knows how to apply, in the order they were added,
+ * which is neither their cost nor their difficulty. The ordinals index the
+ * counters of Grade, HistogramMetrics and SolveTrace. The rating of every
+ * technique follows the scale of Sudoku Explainer, the techniques that take
+ * more than one size, like subsets and fish, have one rating per size from 2
+ */
+public enum Technique {
+	UNIQUE_POSSIBILITIES("discardUniquePossibilities", 1.0),
+	MANDATORY_NUMBER_IN_COL_OR_ROW("discardMandatoryNumberInColOrRowForQuadrant", 1.7),
+	QUADRANT_POSSIBILITIES("discardFromQuadrantPossibilities", 1.2),
+	NAKED_SUBSETS("spotNakedSubsets", 3.0, 3.6, 5.0),
+	HIDDEN_SUBSETS("spotHiddenSubsets", 3.4, 4.0, 5.4),
+	XY_WING("discardFromXYWing", 4.2),
+	XYZ_WING("discardFromXYZWing", 4.4),
+	X_WING("discardFromXWing", 3.2, 3.8, 5.2),
+	SIMPLE_COLOURING("discardFromSimpleColouring", 6.5),
+	ALTERNATING_CHAINS("discardFromAlternatingChains", 7.0);
+
+	private final String method;
+	/*
+		Rating of every size, from 2, a single one for the techniques without sizes
+	 */
+	private final double[] ratings;
+
+	Technique(String method, double... ratings) {
+		this.method = method;
+		this.ratings = ratings;
+	}
+
+	/**
+	 * @return name of the SudokuBoard method implementing the technique
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return difficulty of the technique for a person, of its smallest size
+	 */
+	public double getRating() {
+		return ratings[0];
+	}
+
+	/**
+	 * @param size size of the subset or fish, 2 for a pair or an X-Wing,
+	 * ignored by the techniques without sizes
+	 * @return difficulty of the technique of that size for a person
+	 */
+	public double getRating(int size) {
+		return ratings[Math.max(0, Math.min(size - 2, ratings.length - 1))];
+	}
+}
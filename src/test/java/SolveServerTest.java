@@ -0,0 +1,126 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Talks to a running server over a socket. Every read times out, so an answer
+ * that is never written fails the test instead of hanging it
+ */
+public class SolveServerTest {
+
+	private static final String PUZZLE = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+	private static final int TIMEOUT = 2000;
+
+	private SolveServer server;
+	private Socket socket;
+	private BufferedReader reader;
+
+	@AfterEach
+	public void close() throws IOException {
+		if (socket != null)
+			socket.close();
+		if (server != null)
+			server.close();
+	}
+
+	@Test
+	public void answersWrongLengthAtOnce() throws IOException {
+		start(new BoardPool(), 1, 16);
+		send("x1 12345\n");
+		assertTrue(read().startsWith("x1 ERROR "));
+	}
+
+	@Test
+	public void answersInvalidCellAtOnce() throws IOException {
+		start(new BoardPool(), 1, 16);
+		send("x2 " + PUZZLE.replace('7', 'x') + "\n");
+		assertEquals("x2 ERROR Invalid cell 'x'", read());
+	}
+
+	@Test
+	public void rejectsTextBoardsWithoutSymbols() throws IOException {
+		start(new BoardPool(), 1, 16);
+		send("x3 " + ".".repeat(36 * 36) + "\n");
+		String answer = read();
+		assertTrue(answer.startsWith("x3 ERROR ") && answer.contains("binary frame"), answer);
+	}
+
+	@Test
+	public void answersInvalidFrameAtOnce() throws IOException {
+		start(new BoardPool(), 1, 16);
+		socket.getOutputStream().write(ByteBuffer.allocate(6).put((byte) 0).put((byte) 10).putInt(42).array());
+		DataInputStream input = new DataInputStream(socket.getInputStream());
+		assertEquals(0, input.readByte());
+		assertEquals(10, input.readByte());
+		assertEquals(42, input.readInt());
+		assertEquals(3, input.readByte());
+	}
+
+	@Test
+	public void answersBusyWhileTheWorkerIsBusy() throws IOException, InterruptedException {
+		BlockingPool boards = new BlockingPool();
+		start(boards, 1, 1);
+		send("a " + PUZZLE + "\n");
+		assertTrue(boards.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		send("b " + PUZZLE + "\nc " + PUZZLE + "\n");
+		assertEquals("c BUSY", read());
+
+		boards.release.countDown();
+		String first = read();
+		String second = read();
+		assertTrue(first.startsWith("a OK ") && second.startsWith("b OK "), first + " / " + second);
+		assertEquals(1, server.getShed());
+	}
+
+	private void start(BoardPool boards, int workers, int queueLimit) throws IOException {
+		server = new SolveServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), workers, queueLimit, 1, boards).start();
+		socket = new Socket(server.getAddress().getAddress(), server.getAddress().getPort());
+		socket.setSoTimeout(TIMEOUT);
+	}
+
+	private void send(String lines) throws IOException {
+		OutputStream output = socket.getOutputStream();
+		output.write(lines.getBytes(StandardCharsets.US_ASCII));
+		output.flush();
+	}
+
+	private String read() throws IOException {
+		if (reader == null)
+			reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+		return reader.readLine();
+	}
+
+	/**
+	 * Holds every solve until released, so the queue can be filled on purpose
+	 */
+	private static class BlockingPool extends BoardPool {
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public Integer[][] solve(Integer[][] puzzle) {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return super.solve(puzzle);
+		}
+	}
+}